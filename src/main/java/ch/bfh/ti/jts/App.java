@@ -1,17 +1,25 @@
 package ch.bfh.ti.jts;
 
 import java.awt.Font;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
 import java.util.Collection;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import ch.bfh.ti.jts.data.Checkpoint;
 import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.data.NetImage;
 import ch.bfh.ti.jts.data.SpawnInfo;
 import ch.bfh.ti.jts.gui.Window;
 import ch.bfh.ti.jts.gui.console.Console;
 import ch.bfh.ti.jts.gui.console.commands.Command;
+import ch.bfh.ti.jts.importer.DomNetImporter;
+import ch.bfh.ti.jts.importer.NetCache;
 import ch.bfh.ti.jts.importer.NetImporter;
 import ch.bfh.ti.jts.importer.RoutesImporter;
+import ch.bfh.ti.jts.importer.RoutesLoader;
+import ch.bfh.ti.jts.simulation.Checkpointer;
 import ch.bfh.ti.jts.simulation.Simulation;
 import ch.bfh.ti.jts.utils.Config;
 
@@ -36,6 +44,24 @@ public class App implements Runnable {
      * Format string used for routes loading.
      */
     private static final String  ROUTES_LOAD_FORMAT = Config.getInstance().getValue("path.routes", "src/main/resources/%s.rou.xml");
+    /**
+     * Import nets from a DOM instead of streaming them.
+     */
+    private static final boolean NET_IMPORT_DOM     = "dom".equals(Config.getInstance().getEnum("net.importer", new String[] { "stream", "dom" }));
+    /**
+     * Import nets through the cache of compiled nets.
+     */
+    private static final boolean NET_CACHE          = Config.getInstance().getBool("net.cache", true);
+    /**
+     * Restart from an image of the loaded net instead of importing the files
+     * again.
+     */
+    private static final boolean RESTART_IMAGE      = Config.getInstance().getBool("net.restart.image", true);
+    /**
+     * Stream the routes while the simulation runs instead of importing them
+     * all at once.
+     */
+    private static final boolean ROUTES_LAZY        = Config.getInstance().getBool("net.spawning.lazy", true);
     /**
      * Commands the simulation should execute.
      */
@@ -47,6 +73,10 @@ public class App implements Runnable {
     private static App           instance           = new App();
     public boolean               isRunning          = false;
     private String               netName;
+    /**
+     * Image of the loaded net, including eagerly imported routes. Can be null.
+     */
+    private NetImage             netImage;
     private Simulation           simulation;
 
     public void addCommand(final Command command) {
@@ -55,6 +85,9 @@ public class App implements Runnable {
 
     private void end() {
         // free resources or clean up stuff...
+        if (simulation != null) {
+            simulation.close();
+        }
     }
 
     private void executeCommands() {
@@ -80,7 +113,9 @@ public class App implements Runnable {
         if (simulation == null) {
             throw new RuntimeException("simulation not loaded");
         }
-        Window.getInstance().setVisible(true);
+        if (!GraphicsEnvironment.isHeadless()) {
+            Window.getInstance().setVisible(true);
+        }
     }
 
     private boolean isRunning() {
@@ -94,19 +129,47 @@ public class App implements Runnable {
         this.netName = netName;
 
         // import net
-        final NetImporter netImporter = new NetImporter();
-        final Net net = netImporter.importData(String.format(NET_LOAD_FORMAT, this.netName));
+        final String netPath = String.format(NET_LOAD_FORMAT, this.netName);
+        final Net net;
+        if (NET_IMPORT_DOM) {
+            net = new DomNetImporter().importData(netPath);
+        } else if (NET_CACHE) {
+            net = new NetCache().importData(netPath);
+        } else {
+            net = new NetImporter().importData(netPath);
+        }
 
         // import routes data
-        final RoutesImporter routesImporter = new RoutesImporter();
-        routesImporter.setNet(net);
-        final Collection<SpawnInfo> routes = routesImporter.importData(String.format(ROUTES_LOAD_FORMAT, this.netName));
-        net.addRoutes(routes);
-        simulation = new Simulation(net);
+        if (!ROUTES_LAZY) {
+            final RoutesImporter routesImporter = new RoutesImporter();
+            routesImporter.setNet(net);
+            final Collection<SpawnInfo> routes = routesImporter.importData(String.format(ROUTES_LOAD_FORMAT, this.netName));
+            net.addRoutes(routes);
+        }
+        netImage = RESTART_IMAGE ? new NetImage(net) : null;
+        startSimulation(net);
     }
 
     public void restart() {
-        loadSimulation(netName); // load same net again
+        if (netImage == null) {
+            loadSimulation(netName); // load same net again
+        } else {
+            startSimulation(netImage.restore());
+        }
+    }
+
+    /**
+     * Resumes a simulation from a checkpoint. A restart afterwards loads the
+     * net of the checkpoint from the start.
+     *
+     * @param file
+     *            the checkpoint file
+     */
+    public void resume(final File file) {
+        final Checkpoint checkpoint = Checkpointer.read(file);
+        netName = checkpoint.getNetName();
+        netImage = null;
+        startSimulation(checkpoint.restore());
     }
 
     @Override
@@ -119,4 +182,20 @@ public class App implements Runnable {
         }
         end();
     }
+
+    /**
+     * Starts simulating a net. The previous simulation is closed.
+     *
+     * @param net
+     *            the net as imported
+     */
+    private void startSimulation(final Net net) {
+        if (ROUTES_LAZY) {
+            net.setSpawnInfoSource(new RoutesLoader(net, String.format(ROUTES_LOAD_FORMAT, netName)));
+        }
+        if (simulation != null) {
+            simulation.close();
+        }
+        simulation = new Simulation(net, netName);
+    }
 }
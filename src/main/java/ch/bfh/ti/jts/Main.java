@@ -1,5 +1,7 @@
 package ch.bfh.ti.jts;
 
+import java.io.File;
+
 import javax.swing.UIManager;
 
 import org.apache.logging.log4j.LogManager;
@@ -29,7 +31,12 @@ public class Main {
 
         // start app
         final App app = App.getInstance();
-        app.loadSimulation(net);
+        final String resume = Config.getInstance().getValue("checkpoint.resume", "");
+        if (resume.isEmpty()) {
+            app.loadSimulation(net);
+        } else {
+            app.resume(new File(resume));
+        }
         app.run();
     }
 
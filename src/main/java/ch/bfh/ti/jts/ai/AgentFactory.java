@@ -0,0 +1,141 @@
+package ch.bfh.ti.jts.ai;
+
+import java.lang.reflect.Constructor;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import ch.bfh.ti.jts.ai.agents.FullSpeedAgent;
+import ch.bfh.ti.jts.ai.agents.IdleAgent;
+import ch.bfh.ti.jts.ai.agents.RandomAgent;
+import ch.bfh.ti.jts.ai.agents.RealisticAgent;
+import ch.bfh.ti.jts.data.Agent;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Creates agents by their type name. The type names are resolved once and
+ * cached, so creating an agent only costs a constructor call.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class AgentFactory {
+
+    /**
+     * Singleton
+     *
+     * @return instance
+     */
+    public static AgentFactory getInstance() {
+        return INSTANCE;
+    }
+
+    private static final Logger                          log           = LogManager.getLogger(AgentFactory.class);
+    private static final AgentFactory                    INSTANCE      = new AgentFactory();
+    /**
+     * Namespace of agent types which are looked up by reflection.
+     */
+    private static final String                          AGENT_PACKAGE = "ch.bfh.ti.jts.ai.agents";
+    private static final String                          AGENT_SUFFIX  = "Agent";
+    /**
+     * Used for vehicles without agent and for unknown agent types.
+     */
+    private static final Supplier<? extends Agent>       DEFAULT_AGENT = IdleAgent::new;
+
+    /**
+     * Agent suppliers. Key: type name with suffix "Agent".
+     */
+    private final Map<String, Supplier<? extends Agent>> suppliers     = new ConcurrentHashMap<>();
+
+    private AgentFactory() {
+        register(FullSpeedAgent.class.getSimpleName(), FullSpeedAgent::new);
+        register(IdleAgent.class.getSimpleName(), IdleAgent::new);
+        register(RandomAgent.class.getSimpleName(), RandomAgent::new);
+        register(RealisticAgent.class.getSimpleName(), RealisticAgent::new);
+    }
+
+    /**
+     * Creates a new agent.
+     *
+     * @param name
+     *            type name of the agent, with or without suffix "Agent". May
+     *            be {@code null}.
+     * @return the agent
+     */
+    public Agent create(final String name) {
+        return getSupplier(name).get();
+    }
+
+    /**
+     * Gets the supplier for an agent type. Unknown types are resolved once
+     * and then cached.
+     *
+     * @param name
+     *            type name of the agent, with or without suffix "Agent". May
+     *            be {@code null}.
+     * @return supplier of the agent, supplier of the default agent if the
+     *         type is unknown
+     */
+    public Supplier<? extends Agent> getSupplier(final String name) {
+        if (name == null) {
+            return DEFAULT_AGENT;
+        }
+        return suppliers.computeIfAbsent(normalize(name), this::resolve);
+    }
+
+    private String normalize(final String name) {
+        if (!name.endsWith(AGENT_SUFFIX)) {
+            // add suffix
+            return name.concat(AGENT_SUFFIX);
+        }
+        return name;
+    }
+
+    /**
+     * Registers an agent type. An already registered type is replaced.
+     *
+     * @param name
+     *            type name of the agent, with or without suffix "Agent"
+     * @param supplier
+     *            creates new agents of this type
+     */
+    public void register(final String name, final Supplier<? extends Agent> supplier) {
+        if (name == null) {
+            throw new ArgumentNullException("name");
+        }
+        if (supplier == null) {
+            throw new ArgumentNullException("supplier");
+        }
+        suppliers.put(normalize(name), supplier);
+    }
+
+    /**
+     * Looks up an agent type by reflection.
+     *
+     * @param name
+     *            normalized type name
+     * @return supplier of the agent, supplier of the default agent if the
+     *         lookup failed
+     */
+    private Supplier<? extends Agent> resolve(final String name) {
+        try {
+            // append namespace
+            final Class<? extends Agent> clazz = Class.forName(String.format("%s.%s", AGENT_PACKAGE, name)).asSubclass(Agent.class);
+            final Constructor<? extends Agent> ctor = clazz.getConstructor();
+            log.debug("Resolved agent: " + clazz);
+            return () -> {
+                try {
+                    return ctor.newInstance();
+                } catch (final ReflectiveOperationException e) {
+                    throw new RuntimeException("Creating agent failed: " + name, e);
+                }
+            };
+        } catch (final ReflectiveOperationException | ClassCastException e) {
+            log.warn("Unknown agent: " + name + ", using " + IdleAgent.class.getSimpleName());
+        }
+        return DEFAULT_AGENT;
+    }
+}
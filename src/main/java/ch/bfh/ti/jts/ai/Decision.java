@@ -37,6 +37,16 @@ public class Decision implements Serializable {
         laneChange = LaneChange.NONE;
     }
 
+    /**
+     * Resets all decisions to their initial values.
+     */
+    public void clear() {
+        acceleration = 0.0;
+        laneChange = LaneChange.NONE;
+        turning = null;
+        destination = null;
+    }
+
     public double getAcceleration() {
         return acceleration;
     }
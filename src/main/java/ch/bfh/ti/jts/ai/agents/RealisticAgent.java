@@ -10,6 +10,7 @@ import ch.bfh.ti.jts.ai.LaneChange;
 import ch.bfh.ti.jts.data.Agent;
 import ch.bfh.ti.jts.data.Junction;
 import ch.bfh.ti.jts.data.Lane;
+import ch.bfh.ti.jts.data.SpawnInfo;
 import ch.bfh.ti.jts.data.Vehicle;
 import ch.bfh.ti.jts.simulation.Simulation;
 import ch.bfh.ti.jts.utils.Config;
@@ -150,12 +151,25 @@ public class RealisticAgent extends RandomAgent {
         return (deltaDistance - stoppingDistance) / Simulation.SIMULATION_STEP_DURATION;
     }
 
+    @Override
+    public void init(final double positionOnLane, final Vehicle vehicle, final double velocity, final SpawnInfo spawnInfo) {
+        super.init(positionOnLane, vehicle, velocity, spawnInfo);
+        // the id is reissued on every spawn
+        rand.setSeed(getId());
+    }
+
     private boolean isImpatient() {
         final double waitTime = impatienceCounter * Simulation.SIMULATION_STEP_DURATION;
         final double patientTime = getPatientTime();
         return waitTime >= patientTime;
     }
 
+    @Override
+    protected void reset() {
+        super.reset();
+        impatienceCounter = 0;
+    }
+
     private double simulateMove(final double velocity) {
         final double distanceToDrive = velocity * Simulation.SIMULATION_STEP_DURATION;
         final double distanceOnLaneLeft = getAbsoluteDistanceOnLaneLeft();
@@ -6,8 +6,6 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
-import java.util.NavigableMap;
-import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 
 import ch.bfh.ti.jts.App;
@@ -16,6 +14,7 @@ import ch.bfh.ti.jts.ai.Decision;
 import ch.bfh.ti.jts.ai.LaneChange;
 import ch.bfh.ti.jts.ai.Thinkable;
 import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.gui.RenderContext;
 import ch.bfh.ti.jts.gui.Renderable;
 import ch.bfh.ti.jts.simulation.Simulatable;
 import ch.bfh.ti.jts.utils.Config;
@@ -41,6 +40,10 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
      * Length of the debug acceleration indicator
      */
     public final static double   ACCELERATION_DEBUG_INDICATOR_LENGTH = Config.getInstance().getDouble("agent.acceleration.debug.indicator.lenght", 5, 1, 100);
+    /**
+     * Number of lane changes remembered for the animation.
+     */
+    private final static int     LANE_CHANGE_LOG_SIZE                = 4;
     /**
      * Decision object.
      */
@@ -77,6 +80,10 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
      * Color.
      */
     private final Color          color;
+    /**
+     * Last lane changes of this agent.
+     */
+    private final LaneChangeLog  laneChangeLog                       = new LaneChangeLog(LANE_CHANGE_LOG_SIZE);
     
     public Agent() {
         super("Agent");
@@ -138,6 +145,13 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
         return lane;
     }
     
+    /**
+     * @return the last lane changes of the agent
+     */
+    public LaneChangeLog getLaneChangeLog() {
+        return laneChangeLog;
+    }
+    
     /**
      * @return absolute position on the lane. From the start to the current
      *         position of the agent.
@@ -202,6 +216,23 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
         setSpawnInfo(spawnInfo);
     }
     
+    /**
+     * Resets the agent to the state after construction, so that it can be
+     * spawned again. Subclasses holding state have to override this.
+     */
+    protected void reset() {
+        revive();
+        decision.clear();
+        lane = null;
+        velocity = 0.0;
+        acceleration = 0.0;
+        lanePosition = 0.0;
+        vehicle = null;
+        spawnInfo = null;
+        collisionCount = 0;
+        laneChangeLog.clear();
+    }
+
     /**
      * @return @{code true} if agent is at end of lane and want's to leave the
      *         edge, @{code false} otherwise
@@ -232,6 +263,10 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
     
     @Override
     public void render(final Graphics2D g) {
+        render(g, Config.getInstance().getBool("agent.render.infos", false));
+    }
+
+    private void render(final Graphics2D g, final boolean infos) {
         final Point2D position = getPosition();
         final double x = position.getX();
         final double y = position.getY();
@@ -241,7 +276,7 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
         g.translate(x, y);
         g.rotate(orientation);
         g.fill(vehicle.getShape());
-        if (Config.getInstance().getBool("agent.render.infos", false)) {
+        if (infos) {
             g.setFont(App.FONT);
             g.drawString("Agent " + getId(), -9, 5);
         }
@@ -266,34 +301,31 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
     }
     
     @Override
-    public void render(final Graphics2D g, final NavigableMap<Double, Net> simulationStates) {
+    public void render(final Graphics2D g, final RenderContext context) {
+        final boolean infos = context.isLabelsVisible() && Config.getInstance().getBool("agent.render.infos", false);
         if (CHANGE_LANE_ANIMATED) {
-            final Point2D position = getPosition();
+            final Point2D position = getLane().getPolyShape().getRelativePosition(getRelativeLanePosition(), context.getPointBuffer());
             final double x = position.getX();
             final double y = position.getY();
             double xChangeLaneShift = 0;
             double yChangeLaneShift = 0;
             // translate to agent
             g.translate(x, y);
-            final double wallClockTime = App.getInstance().getSimulation().getWallClockTime();
-            // check old simulation states
-            final Optional<Element.ElementInTime> lastAgentStateBeforeLaneChange = simulationStates.headMap(wallClockTime).values().stream().map(oldNet -> {
-                return new Element.ElementInTime(oldNet.getSimulationTime(), oldNet.getElement(getId()));
-            }).filter(oldAgentInTime -> {
-                final Agent oldAgent = (Agent) oldAgentInTime.getElement();
-                // lane changed on same edge?
-                // @formatter:off
-                return  oldAgent != null
-                        && (
-                                getLane().getLeftLane().isPresent()
-                                && oldAgent.getLane().getId() == getLane().getLeftLane().get().getId() || getLane().getRightLane().isPresent()
-                                && oldAgent.getLane().getId() == getLane().getRightLane().get().getId()
-                                );
-                // @formatter:on
-                    }).sorted().findFirst();
-            if (lastAgentStateBeforeLaneChange.isPresent()) {
-                final double lastTimeBeforeChange = lastAgentStateBeforeLaneChange.get().getTime();
-                final Agent lastAgentStateBeforeChange = (Agent) lastAgentStateBeforeLaneChange.get().getElement();
+            final double wallClockTime = context.getWallClockTime();
+            // last lane change on the same edge
+            final Lane leftLane = getLane().getLeftLane().orElse(null);
+            final Lane rightLane = getLane().getRightLane().orElse(null);
+            final int lastChange = laneChangeLog.find(wallClockTime);
+            Point2D lastPositionBeforeChange = null;
+            double lastTimeBeforeChange = 0.0;
+            if (lastChange >= 0) {
+                final int fromLaneId = laneChangeLog.getFromLaneId(lastChange);
+                if (leftLane != null && fromLaneId == leftLane.getId() || rightLane != null && fromLaneId == rightLane.getId()) {
+                    lastPositionBeforeChange = new Point2D.Double(laneChangeLog.getX(lastChange), laneChangeLog.getY(lastChange));
+                    lastTimeBeforeChange = laneChangeLog.getTime(lastChange);
+                }
+            }
+            if (lastPositionBeforeChange != null) {
                 final double lastLaneChangeRelativeTime = wallClockTime - lastTimeBeforeChange;
                 final double changeLaneAnimationDurationLeft = CHANGE_LANE_ANIMATION_DURATION - lastLaneChangeRelativeTime;
                 if (changeLaneAnimationDurationLeft > 0) {
@@ -302,9 +334,9 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
                     if (extrapolatedRelativePosition >= 0 && extrapolatedRelativePosition <= 1) {
                         final Point2D extrapolatedPosition = getLane().getPolyShape().getRelativePosition(extrapolatedRelativePosition);
                         final double changeLaneFactor = 1 - changeLaneAnimationDurationLeft / CHANGE_LANE_ANIMATION_DURATION;
-                        final Point2D changeLanePosition = new Point2D.Double(changeLaneFactor * (extrapolatedPosition.getX() - lastAgentStateBeforeChange.getPosition().getX())
-                                + lastAgentStateBeforeChange.getPosition().getX(), changeLaneFactor * (extrapolatedPosition.getY() - lastAgentStateBeforeChange.getPosition().getY())
-                                + lastAgentStateBeforeChange.getPosition().getY());
+                        final Point2D changeLanePosition = new Point2D.Double(changeLaneFactor * (extrapolatedPosition.getX() - lastPositionBeforeChange.getX())
+                                + lastPositionBeforeChange.getX(), changeLaneFactor * (extrapolatedPosition.getY() - lastPositionBeforeChange.getY())
+                                + lastPositionBeforeChange.getY());
                         xChangeLaneShift = changeLanePosition.getX() - x;
                         yChangeLaneShift = changeLanePosition.getY() - y;
                         if (Main.DEBUG) {
@@ -312,11 +344,11 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
                             g.setStroke(new BasicStroke(.5f));
                             g.translate(-x, -y);
                             g.drawOval((int) extrapolatedPosition.getX() - 2, (int) extrapolatedPosition.getY() - 2, 4, 4);
-                            g.drawOval((int) lastAgentStateBeforeChange.getPosition().getX() - 2, (int) lastAgentStateBeforeChange.getPosition().getY() - 2, 4, 4);
-                            g.drawLine((int) lastAgentStateBeforeChange.getPosition().getX(), (int) lastAgentStateBeforeChange.getPosition().getY(), (int) extrapolatedPosition.getX(),
+                            g.drawOval((int) lastPositionBeforeChange.getX() - 2, (int) lastPositionBeforeChange.getY() - 2, 4, 4);
+                            g.drawLine((int) lastPositionBeforeChange.getX(), (int) lastPositionBeforeChange.getY(), (int) extrapolatedPosition.getX(),
                                     (int) extrapolatedPosition.getY());
                             g.setColor(Color.RED);
-                            g.drawLine((int) lastAgentStateBeforeChange.getPosition().getX(), (int) lastAgentStateBeforeChange.getPosition().getY(), (int) changeLanePosition.getX(),
+                            g.drawLine((int) lastPositionBeforeChange.getX(), (int) lastPositionBeforeChange.getY(), (int) changeLanePosition.getX(),
                                     (int) changeLanePosition.getY());
                             g.translate(x, y);
                         }
@@ -325,10 +357,10 @@ public abstract class Agent extends Element implements Thinkable, Simulatable, R
                 }
             }
             g.translate(-x, -y);
-            Renderable.super.render(g, simulationStates);
+            render(g, infos);
             g.translate(-xChangeLaneShift, -yChangeLaneShift);
         } else {
-            Renderable.super.render(g, simulationStates);
+            render(g, infos);
         }
     }
     
@@ -0,0 +1,156 @@
+package ch.bfh.ti.jts.data;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import ch.bfh.ti.jts.ai.AgentFactory;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Keeps despawned agents for reuse, so that steady flows don't allocate a new
+ * agent for every spawn. Agents are pooled by the agent type name of their
+ * vehicle.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class AgentPool {
+
+    /**
+     * Maximum number of pooled agents per agent type.
+     */
+    private final int                       capacity;
+    /**
+     * Pooled agents. Key: agent type name as in {@link Vehicle#getAgent()}.
+     */
+    private final Map<String, Deque<Agent>> agents = new HashMap<>();
+    /**
+     * Number of agents taken from the pool.
+     */
+    private long                            hits;
+    /**
+     * Number of agents which had to be created.
+     */
+    private long                            misses;
+    /**
+     * Number of agents which were dropped because the pool was full.
+     */
+    private long                            drops;
+
+    public AgentPool(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity");
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Gets an agent from the pool or creates a new one.
+     *
+     * @param vehicle
+     *            vehicle the agent is for
+     * @return the agent
+     */
+    public synchronized Agent acquire(final Vehicle vehicle) {
+        if (vehicle == null) {
+            throw new ArgumentNullException("vehicle");
+        }
+        final Deque<Agent> pooled = agents.get(vehicle.getAgent());
+        if (pooled != null && !pooled.isEmpty()) {
+            hits++;
+            return pooled.pop();
+        }
+        misses++;
+        return vehicle.createAgent();
+    }
+
+    /**
+     * Fills the pool with new agents, so that as many agents are reused as in
+     * the run the sizes are from.
+     *
+     * @param sizes
+     *            number of agents by agent type name as from
+     *            {@link AgentPool#getSizes()}
+     */
+    synchronized void fill(final Map<String, Integer> sizes) {
+        if (sizes == null) {
+            throw new ArgumentNullException("sizes");
+        }
+        sizes.forEach((name, size) -> {
+            Deque<Agent> pooled = agents.get(name);
+            if (pooled == null) {
+                pooled = new ArrayDeque<>();
+                agents.put(name, pooled);
+            }
+            while (pooled.size() < Math.min(size, capacity)) {
+                pooled.push(AgentFactory.getInstance().create(name));
+            }
+        });
+    }
+
+    public synchronized long getDrops() {
+        return drops;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of pooled agents.
+     *
+     * @return number of agents
+     */
+    public synchronized int getSize() {
+        return agents.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    /**
+     * Gets the number of pooled agents per agent type.
+     *
+     * @return number of agents by agent type name
+     */
+    synchronized Map<String, Integer> getSizes() {
+        final Map<String, Integer> sizes = new HashMap<>();
+        agents.forEach((name, pooled) -> {
+            sizes.put(name, pooled.size());
+        });
+        return sizes;
+    }
+
+    /**
+     * Puts a despawned agent into the pool. The agent is reset.
+     *
+     * @param agent
+     *            the agent, must not be part of a net anymore
+     */
+    public synchronized void release(final Agent agent) {
+        if (agent == null) {
+            throw new ArgumentNullException("agent");
+        }
+        // pooled by the type it was created for
+        final String name = agent.getVehicle() == null ? null : agent.getVehicle().getAgent();
+        Deque<Agent> pooled = agents.get(name);
+        if (pooled == null) {
+            pooled = new ArrayDeque<>();
+            agents.put(name, pooled);
+        }
+        if (pooled.size() < capacity) {
+            agent.reset();
+            pooled.push(agent);
+        } else {
+            drops++;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("AgentPool{ size: %d, hits: %d, misses: %d, drops: %d }", getSize(), hits, misses, drops);
+    }
+}
@@ -0,0 +1,74 @@
+package ch.bfh.ti.jts.data;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * State of a simulation from which it can be resumed: the net with its
+ * agents, their decisions, the scheduled spawns and the random generators,
+ * plus the number of pooled agents, which are not part of the net.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class Checkpoint implements Serializable {
+
+    private static final long          serialVersionUID = 1L;
+
+    /**
+     * Name of the net, to find the routes again.
+     */
+    private final String               netName;
+    private final Net                  state;
+    /**
+     * Number of pooled agents, see {@link AgentPool#getSizes()}.
+     */
+    private final Map<String, Integer> poolSizes;
+
+    /**
+     * Takes a checkpoint. Must be called on the simulation thread right after
+     * the state was copied.
+     *
+     * @param netName
+     *            name of the net
+     * @param net
+     *            the simulated net
+     * @param state
+     *            copy of the simulated net, must not change anymore
+     */
+    public Checkpoint(final String netName, final Net net, final Net state) {
+        if (netName == null) {
+            throw new ArgumentNullException("netName");
+        }
+        if (net == null) {
+            throw new ArgumentNullException("net");
+        }
+        if (state == null) {
+            throw new ArgumentNullException("state");
+        }
+        this.netName = netName;
+        this.state = state;
+        poolSizes = net.getAgentPool().getSizes();
+    }
+
+    public String getNetName() {
+        return netName;
+    }
+
+    public double getSimulationTime() {
+        return state.getSimulationTime();
+    }
+
+    /**
+     * Gets the net to resume. Its agent pool is refilled to the size it had.
+     * Can be called once.
+     *
+     * @return the net
+     */
+    public Net restore() {
+        state.getAgentPool().fill(poolSizes);
+        return state;
+    }
+}
@@ -2,6 +2,7 @@ package ch.bfh.ti.jts.data;
 
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Optional;
@@ -53,15 +54,22 @@ public class Edge extends Element implements SpawnLocation, DirectedGraphEdge<Ed
 
     public void addLane(final Lane lane) {
         lanes.add(lane);
+        start.invalidateTopology();
+        end.invalidateTopology();
     }
 
     public Lane getDefaultLane(final Lane current) {
         return current.getLanes().stream().filter(x -> x.comesFrom(current.getEdge().getEnd())).findFirst().orElse(null);
     }
 
+    @Override
+    public Rectangle2D getBounds() {
+        return new Line2D.Double(getStart().getPosition(), getEnd().getPosition()).getBounds2D();
+    }
+
     @Override
     public double getDistance(final Point2D coordinates) {
-        return Helpers.distancePointToLine(coordinates, new Line2D.Double(getStart().getPosition(), getEnd().getPosition()));
+        return new Line2D.Double(getStart().getPosition(), getEnd().getPosition()).ptSegDist(coordinates);
     }
 
     public Set<Agent> getEdgeLeaveCandidates() {
@@ -92,6 +100,14 @@ public class Edge extends Element implements SpawnLocation, DirectedGraphEdge<Ed
         return priority;
     }
 
+    /**
+     * The cost grows with the number of agents on the lanes of this edge.
+     */
+    @Override
+    public double getSimulationCost() {
+        return 1.0 + lanes.stream().mapToInt(Lane::getAgentCount).sum();
+    }
+
     @Override
     public Lane getSpawnLane() {
         return getFirstLane();
@@ -130,6 +146,9 @@ public class Edge extends Element implements SpawnLocation, DirectedGraphEdge<Ed
                     try {
                         // lane switch possible?
                         if (changeLane.isPresent()) {
+                            // remember where the change started for the animation
+                            final Point2D position = agent.getPosition();
+                            agent.getLaneChangeLog().record(getNet().getSimulationTime(), lane, position.getX(), position.getY());
                             agent.setLane(changeLane.get());
                             changeLane.get().addLaneAgent(agent);
                             lane.removeLaneAgent(agent);
@@ -1,6 +1,7 @@
 package ch.bfh.ti.jts.data;
 
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -45,12 +46,23 @@ public abstract class Element implements Serializable, Comparable<Element> {
 
     }
 
+    /**
+     * Continues the numbering of new elements after an id. Used to number the
+     * elements of a restored net as in the original net.
+     *
+     * @param lastId
+     *            highest id in use
+     */
+    static void resetIds(final int lastId) {
+        NEXT_ID.set(lastId);
+    }
+
     private static final long          serialVersionUID = 1L;
 
     private static final AtomicInteger NEXT_ID          = new AtomicInteger(0);
 
     private final String               name;
-    private final int                  id;
+    private int                        id;
     private Net                        net;
     private boolean                    isRemoveCandidate;
 
@@ -77,6 +89,18 @@ public abstract class Element implements Serializable, Comparable<Element> {
         return new Integer(elem.id).equals(id);
     }
 
+    /**
+     * Bounding box of this element in world coordinates. Used by the spatial
+     * index of the {@link Net}: {@link Element#getDistance(Point2D)} must never
+     * be smaller than the distance to this box.
+     *
+     * @return the bounding box
+     */
+    public Rectangle2D getBounds() {
+        final Point2D position = getPosition();
+        return new Rectangle2D.Double(position.getX(), position.getY(), 0, 0);
+    }
+
     /**
      * Absolute distance to another element.
      *
@@ -146,10 +170,34 @@ public abstract class Element implements Serializable, Comparable<Element> {
     }
 
     /**
-     * Flag this element as remove candidate.
+     * Flag this element as remove candidate. The net removes it at the end of
+     * the simulation step.
+     */
+    public synchronized void remove() {
+        if (!isRemoveCandidate) {
+            isRemoveCandidate = true;
+            if (net != null) {
+                net.enqueueRemoval(this);
+            }
+        }
+    }
+
+    /**
+     * Reissues the id of this element. Only allowed while the element is not
+     * part of a net.
+     *
+     * @param id
+     *            new id
+     */
+    void setId(final int id) {
+        this.id = id;
+    }
+
+    /**
+     * Clears the remove candidate flag. Used when a removed element is reused.
      */
-    public void remove() {
-        isRemoveCandidate = true;
+    void revive() {
+        isRemoveCandidate = false;
     }
 
     public void setNet(final Net net) {
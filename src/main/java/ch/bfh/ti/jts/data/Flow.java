@@ -1,7 +1,10 @@
 package ch.bfh.ti.jts.data;
 
+import java.util.Random;
+
 /**
  * Flow is a special spawn type. Agents are spawned in a certain frequency.
+ * After each spawn the flow is scheduled again after one headway.
  *
  * @author Enteee
  * @author winki
@@ -11,7 +14,6 @@ public class Flow extends SpawnInfo {
     private static final long serialVersionUID = 1L;
 
     private final double      frequency;
-    private int               count;
 
     public Flow(final Vehicle vehicle, final Junction start, final Junction end, final double departureSpeed, final double arrivalSpeed, final double frequency) {
         super(vehicle, start, end, 0.0, 0.0, departureSpeed, 0.0, arrivalSpeed);
@@ -22,6 +24,28 @@ public class Flow extends SpawnInfo {
         return frequency;
     }
 
+    /**
+     * Gets the time until the next spawn of this flow.
+     *
+     * @param random
+     *            random number generator used for poisson arrivals
+     * @param poisson
+     *            {@code true} for exponentially distributed headways (poisson
+     *            arrivals), {@code false} for a fixed headway
+     * @return headway [s], {@link Double#POSITIVE_INFINITY} if the flow never
+     *         spawns
+     */
+    public double getHeadway(final Random random, final boolean poisson) {
+        if (frequency <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (poisson) {
+            // inverse transform sampling, 1 - x is in (0, 1]
+            return -Math.log(1.0 - random.nextDouble()) / frequency;
+        }
+        return 1.0 / frequency;
+    }
+
     public Junction getRouteEnd() {
         final SpawnLocation end = getEnd();
         if (end instanceof Junction) {
@@ -37,14 +61,4 @@ public class Flow extends SpawnInfo {
         }
         return null;
     }
-
-    public boolean isSpawn(final double time) {
-        assert time >= 0;
-
-        if (count / time < frequency) {
-            count++;
-            return true;
-        }
-        return false;
-    }
 }
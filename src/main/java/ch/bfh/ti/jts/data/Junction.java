@@ -5,11 +5,13 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Shape;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -35,6 +37,19 @@ public class Junction extends Element implements SpawnLocation, DirectedGraphVer
     private final double           y;
     private final Shape            shape;
     private final Collection<Edge> edges;
+    /**
+     * Connectivity, see {@link Junction#buildTopology()}.
+     */
+    private volatile boolean       topologyBuilt;
+    private List<Edge>             incomingEdges;
+    private List<Edge>             outgoingEdges;
+    private List<Lane>             incomingLanes;
+    private List<Lane>             outgoingLanes;
+    private List<Junction>         reachableVertices;
+    /**
+     * Lane connections. Index: incoming lane, outgoing lane.
+     */
+    private boolean[][]            connections;
 
     public Junction(final String name, final double x, final double y, final Shape shape) {
         super(name);
@@ -49,43 +64,114 @@ public class Junction extends Element implements SpawnLocation, DirectedGraphVer
 
     public void addEdge(final Edge edge) {
         edges.add(edge);
+        invalidateTopology();
+    }
+
+    /**
+     * Freezes the connectivity of this junction into arrays: incoming and
+     * outgoing edges and lanes, reachable junctions and the lane connection
+     * matrix. Also sets the neighbours and the merging flag of the incoming
+     * lanes.
+     */
+    synchronized void buildTopology() {
+        final Edge[] incomingEdges = edges.stream().filter(edge -> edge.goesTo(this)).toArray(Edge[]::new);
+        final Edge[] outgoingEdges = edges.stream().filter(edge -> edge.comesFrom(this)).toArray(Edge[]::new);
+        final Lane[] incomingLanes = Arrays.stream(incomingEdges).flatMap(x -> x.getLanes().stream()).toArray(Lane[]::new);
+        final Lane[] outgoingLanes = Arrays.stream(outgoingEdges).flatMap(x -> x.getLanes().stream()).toArray(Lane[]::new);
+        final Junction[] reachableVertices = Arrays.stream(outgoingEdges).map(Edge::getEnd).distinct().toArray(Junction[]::new);
+        for (int i = 0; i < outgoingLanes.length; i++) {
+            outgoingLanes[i].setOutgoingIndex(i);
+        }
+        // connection matrix: incoming lane x outgoing lane
+        final boolean[][] connections = new boolean[incomingLanes.length][outgoingLanes.length];
+        final int[] connectionCounts = new int[outgoingLanes.length];
+        for (int i = 0; i < incomingLanes.length; i++) {
+            for (final Lane outgoing : incomingLanes[i].getLanes()) {
+                if (outgoing.comesFrom(this)) {
+                    final int j = outgoing.getOutgoingIndex();
+                    if (!connections[i][j]) {
+                        connections[i][j] = true;
+                        connectionCounts[j]++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < incomingLanes.length; i++) {
+            final Lane incoming = incomingLanes[i];
+            boolean merging = false;
+            for (int j = 0; j < outgoingLanes.length; j++) {
+                // more than one lane leads to the same outgoing lane
+                merging |= connections[i][j] && connectionCounts[j] > 1;
+            }
+            Lane left = null;
+            Lane right = null;
+            for (final Lane lane : incoming.getEdge().getLanes()) {
+                if (lane.getIndex() == incoming.getIndex() + 1) {
+                    left = lane;
+                } else if (lane.getIndex() == incoming.getIndex() - 1) {
+                    right = lane;
+                }
+            }
+            incoming.setTopology(i, left, right, merging);
+        }
+        this.incomingEdges = Collections.unmodifiableList(Arrays.asList(incomingEdges));
+        this.outgoingEdges = Collections.unmodifiableList(Arrays.asList(outgoingEdges));
+        this.incomingLanes = Collections.unmodifiableList(Arrays.asList(incomingLanes));
+        this.outgoingLanes = Collections.unmodifiableList(Arrays.asList(outgoingLanes));
+        this.reachableVertices = Collections.unmodifiableList(Arrays.asList(reachableVertices));
+        this.connections = connections;
+        topologyBuilt = true;
+    }
+
+    /**
+     * Builds the connectivity if it is not up to date.
+     */
+    void ensureTopology() {
+        if (!topologyBuilt) {
+            buildTopology();
+        }
+    }
+
+    @Override
+    public Rectangle2D getBounds() {
+        // distances are measured to the position, which can lie outside the
+        // shape
+        final Rectangle2D bounds = new Rectangle2D.Double(x, y, 0, 0);
+        if (!shape.getPathIterator(null).isDone()) {
+            bounds.add(shape.getBounds2D());
+        }
+        return bounds;
     }
 
     @Override
     public Optional<Edge> getEdgeBetween(final Junction vertex) {
-        Optional<Edge> edgeBetween = Optional.empty();
         for (final Edge edge : getOutgoingEdges()) {
             if (edge.goesTo(vertex)) {
-                edgeBetween = Optional.of(edge);
-                break;
+                return Optional.of(edge);
             }
         }
-        return edgeBetween;
+        return Optional.empty();
     }
 
     public Collection<Edge> getIncomingEdges() {
-        return edges.stream().filter(edge -> {
-            return edge.goesTo(this);
-        }).collect(Collectors.toList());
+        ensureTopology();
+        return incomingEdges;
     }
 
     public Collection<Lane> getIncomingLanes() {
-        return edges.stream().filter(edge -> {
-            return edge.goesTo(this);
-        }).flatMap(x -> x.getLanes().stream()).collect(Collectors.toList());
+        ensureTopology();
+        return incomingLanes;
     }
 
     @Override
     public Collection<Edge> getOutgoingEdges() {
-        return edges.stream().filter(edge -> {
-            return edge.comesFrom(this);
-        }).collect(Collectors.toList());
+        ensureTopology();
+        return outgoingEdges;
     }
 
     public Collection<Lane> getOutgoingLanes() {
-        return edges.stream().filter(edge -> {
-            return edge.comesFrom(this);
-        }).flatMap(x -> x.getLanes().stream()).collect(Collectors.toList());
+        ensureTopology();
+        return outgoingLanes;
     }
 
     @Override
@@ -95,25 +181,43 @@ public class Junction extends Element implements SpawnLocation, DirectedGraphVer
 
     @Override
     public Collection<Junction> getReachableVertices() {
-        final Collection<Junction> neighbours = new HashSet<>();
-        getOutgoingEdges().forEach(x -> {
-            neighbours.add(x.getEnd());
-        });
-        return neighbours;
+        ensureTopology();
+        return reachableVertices;
     }
 
     @Override
     public Lane getSpawnLane() {
-        final Collection<Edge> edges = getOutgoingEdges();
-        if (edges.size() > 0) {
-            final Edge edge = edges.stream().findAny().orElse(null);
-            if (edge != null) {
-                return edge.getFirstLane();
-            }
+        ensureTopology();
+        if (outgoingEdges.size() > 0) {
+            return outgoingEdges.get(0).getFirstLane();
         }
         return null;
     }
 
+    /**
+     * Marks the connectivity as outdated.
+     */
+    void invalidateTopology() {
+        topologyBuilt = false;
+    }
+
+    /**
+     * Is an incoming lane connected to an outgoing lane over this junction?
+     *
+     * @param incoming
+     *            lane which goes to this junction
+     * @param outgoing
+     *            lane which comes from this junction
+     * @return {@code true} if connected, {@code false} otherwise
+     */
+    public boolean isConnected(final Lane incoming, final Lane outgoing) {
+        if (incoming == null || outgoing == null || !incoming.goesTo(this) || !outgoing.comesFrom(this)) {
+            return false;
+        }
+        ensureTopology();
+        return connections[incoming.getIncomingIndex()][outgoing.getOutgoingIndex()];
+    }
+
     @Override
     public void render(final Graphics2D g) {
         g.setStroke(new BasicStroke(1));
@@ -124,7 +228,7 @@ public class Junction extends Element implements SpawnLocation, DirectedGraphVer
     @Override
     public void simulate(final double duration) {
         // move incoming agents over junction
-        edges.stream().filter(edge -> edge.goesTo(this)).forEach(edge -> {
+        getIncomingEdges().forEach(edge -> {
             edge.getEdgeLeaveCandidates().forEach((agent) -> {
                 try {
                     // despawn agents, if destination is this junction
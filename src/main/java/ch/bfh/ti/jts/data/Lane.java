@@ -6,9 +6,11 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.geom.Point2D;
-import java.util.AbstractMap.SimpleEntry;
+import java.awt.geom.Rectangle2D;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +28,7 @@ import org.apache.logging.log4j.Logger;
 import ch.bfh.ti.jts.App;
 import ch.bfh.ti.jts.exceptions.ArgumentNullException;
 import ch.bfh.ti.jts.gui.PolyShape;
+import ch.bfh.ti.jts.gui.RenderContext;
 import ch.bfh.ti.jts.gui.Renderable;
 import ch.bfh.ti.jts.simulation.Simulatable;
 import ch.bfh.ti.jts.simulation.Statistics;
@@ -42,6 +45,10 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
     private static final long                      serialVersionUID  = 1L;
     private static final Logger                    log               = LogManager.getLogger(Lane.class);
     public final static boolean                    LANE_RENDER_INFOS = Config.getInstance().getBool("lane.render.infos", false);
+    /**
+     * Number of heat colors, 0 for a continuous color range.
+     */
+    private final static int                       COLOR_STEPS       = Config.getInstance().getInt("lane.render.colorsteps", 10, 0, 1000);
 
     private final Edge                             edge;
     private final int                              index;
@@ -62,6 +69,16 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
      */
     final Set<Agent>                               edgeLeaveCandidates;
 
+    /**
+     * Neighbour lanes on the same edge. Can be null. Set by
+     * {@link Junction#buildTopology()}.
+     */
+    private Lane                                   leftLane;
+    private Lane                                   rightLane;
+    private boolean                                merging;
+    private int                                    incomingIndex     = -1;
+    private int                                    outgoingIndex     = -1;
+
     private double                                 spaceMeanSpeed;
     private double                                 timeMeanSpeed;
     private double                                 density;
@@ -92,6 +109,20 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
         edgeLeaveCandidates.add(agent);
     }
 
+    /**
+     * Connects this lane to a lane of the next edge.
+     *
+     * @param lane
+     *            the lane to connect to
+     */
+    public void addLane(final Lane lane) {
+        if (lane == null) {
+            throw new ArgumentNullException("lane");
+        }
+        lanes.add(lane);
+        getEdge().getEnd().invalidateTopology();
+    }
+
     /**
      * Add a agent to the list of agents on this list.
      *
@@ -115,6 +146,37 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
         return getEdge().getStart() == junction;
     }
 
+    /**
+     * Removes an agent from this lane, regardless of its position.
+     *
+     * @param agent
+     *            the agent
+     */
+    void detachAgent(final Agent agent) {
+        edgeLeaveCandidates.remove(agent);
+        final Iterator<Set<Agent>> agentsAtPositions = laneAgents.values().iterator();
+        while (agentsAtPositions.hasNext()) {
+            final Set<Agent> agentsAtPosition = agentsAtPositions.next();
+            if (agentsAtPosition.remove(agent) && agentsAtPosition.isEmpty()) {
+                agentsAtPositions.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of agents on this lane, including the ones which have
+     * reached the end of the lane.
+     *
+     * @return number of agents
+     */
+    public int getAgentCount() {
+        int count = edgeLeaveCandidates.size();
+        for (final Set<Agent> agents : laneAgents.values()) {
+            count += agents.size();
+        }
+        return count;
+    }
+
     /**
      * Gets a flat collection of all agents on this lane in ascending order.
      *
@@ -130,32 +192,43 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
         return list;
     }
 
+    @Override
+    public Rectangle2D getBounds() {
+        return polyShape.getShape().getBounds2D();
+    }
+
     private Color getColor() {
+        return getColor(false);
+    }
+
+    /**
+     * Gets the color of the lane. Mode is configurable.
+     *
+     * @param aggregated
+     *            {@code true} if the agents are not drawn, the lane then shows
+     *            their density even in normal mode
+     * @return the color
+     */
+    private Color getColor(final boolean aggregated) {
         final String mode = Config.getInstance().getEnum("lane.render.colormode", new String[] { "normal", "density", "timemeanspeed", "spacemeanspeed" });
         if ("normal".equals(mode)) {
-            return Color.BLACK;
+            return aggregated ? getHeatColor(density, 0.0, 0.14, COLOR_STEPS) : Color.BLACK;
         }
         if ("density".equals(mode)) {
-            return getHeatColor(density, 0.0, 0.14);
+            return getHeatColor(density, 0.0, 0.14, COLOR_STEPS);
         }
         if ("timemeanspeed".equals(mode)) {
-            return getHeatColor(timeMeanSpeed, 0.0, 33.3);
+            return getHeatColor(timeMeanSpeed, 0.0, 33.3, COLOR_STEPS);
         }
         if ("spacemeanspeed".equals(mode)) {
-            return getHeatColor(spaceMeanSpeed, 0.0, 33.3);
+            return getHeatColor(spaceMeanSpeed, 0.0, 33.3, COLOR_STEPS);
         }
         throw new RuntimeException("illegal color mode");
     }
 
-    private Set<SimpleEntry<Lane, Lane>> getConnections() {
-        final Junction end = getEdge().getEnd();
-        final Set<SimpleEntry<Lane, Lane>> connections = new HashSet<>();
-        for (final Lane incoming : end.getIncomingLanes()) {
-            for (final Lane outgoing : incoming.getLanes()) {
-                connections.add(new SimpleEntry<Lane, Lane>(incoming, outgoing));
-            }
-        }
-        return connections;
+    @Override
+    public double getDistance(final Point2D coordinates) {
+        return polyShape.getDistance(coordinates);
     }
 
     public Edge getEdge() {
@@ -198,11 +271,22 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
     }
 
     public Collection<Lane> getLanes() {
-        return lanes;
+        return Collections.unmodifiableCollection(lanes);
+    }
+
+    /**
+     * Gets the index of this lane in the incoming lanes of the junction at
+     * the end of the lane. Set when the topology of that junction is built.
+     *
+     * @return index
+     */
+    int getIncomingIndex() {
+        return incomingIndex;
     }
 
     public Optional<Lane> getLeftLane() {
-        return getEdge().getLanes().stream().filter(x -> x.index == index + 1).findAny();
+        getEdge().getEnd().ensureTopology();
+        return Optional.ofNullable(leftLane);
     }
 
     public double getLength() {
@@ -277,8 +361,32 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
         return absolutePosition / getLength();
     }
 
+    /**
+     * Gets the index of this lane in the outgoing lanes of the junction at
+     * the start of the lane. Set when the topology of that junction is built.
+     *
+     * @return index
+     */
+    int getOutgoingIndex() {
+        return outgoingIndex;
+    }
+
+    @Override
+    public int getRenderHash(final RenderContext context) {
+        return getColor(!context.isAgentsVisible()).getRGB();
+    }
+
     public Optional<Lane> getRightLane() {
-        return getEdge().getLanes().stream().filter(x -> x.index == index - 1).findAny();
+        getEdge().getEnd().ensureTopology();
+        return Optional.ofNullable(rightLane);
+    }
+
+    /**
+     * The cost grows with the number of agents on this lane.
+     */
+    @Override
+    public double getSimulationCost() {
+        return 1.0 + getAgentCount();
     }
 
     @Override
@@ -298,26 +406,18 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
         return getLanes().size() > 1;
     }
 
+    /**
+     * Is any of the lanes this lane leads to also reached from another lane?
+     *
+     * @return {@code true} if merging, {@code false} otherwise
+     */
     public boolean isMerging() {
-        // all connections on next junction
-        final Set<SimpleEntry<Lane, Lane>> connections = getConnections();
-        // evaluate...
-        final Collection<Lane> options = getLanes();
-        if (options.size() == 0) {
-            return false;
-        } else if (options.size() > 0) {
-            for (final Lane option : options) {
-                final long count = connections.stream().filter(x -> x.getValue().equals(option)).count();
-                if (count > 1) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        getEdge().getEnd().ensureTopology();
+        return merging;
     }
 
     public boolean isValidOutgoingLane(final Lane lane) {
-        return lanes.contains(lane);
+        return getEdge().getEnd().isConnected(this, lane);
     }
 
     public void removeEdgeLeaveCandidate(final Agent agent) {
@@ -346,15 +446,47 @@ public class Lane extends Element implements SpawnLocation, Simulatable, Rendera
 
     @Override
     public void render(final Graphics2D g) {
+        final Color color = getColor();
+        renderShape(g, color);
+        if (LANE_RENDER_INFOS) {
+            renderInfos(g, color);
+        }
+    }
+
+    @Override
+    public void render(final Graphics2D g, final RenderContext context) {
+        renderShape(g, getColor(!context.isAgentsVisible()));
+    }
+
+    private void renderInfos(final Graphics2D g, final Color color) {
+        g.setFont(App.FONT);
+        g.setColor(color);
+        g.drawString(toString(), (int) getPosition().getX(), (int) getPosition().getY());
+    }
+
+    @Override
+    public void renderOverlay(final Graphics2D g, final RenderContext context) {
+        // statistics change with every frame
+        if (LANE_RENDER_INFOS && context.isLabelsVisible()) {
+            renderInfos(g, getColor(!context.isAgentsVisible()));
+        }
+    }
+
+    private void renderShape(final Graphics2D g, final Color color) {
         g.setStroke(new BasicStroke(3));
-        g.setColor(getColor());
+        g.setColor(color);
         g.draw(polyShape.getShape());
+    }
 
-        if (LANE_RENDER_INFOS) {
-            g.setFont(App.FONT);
-            g.setColor(getColor());
-            g.drawString(toString(), (int) getPosition().getX(), (int) getPosition().getY());
-        }
+    void setOutgoingIndex(final int outgoingIndex) {
+        this.outgoingIndex = outgoingIndex;
+    }
+
+    void setTopology(final int incomingIndex, final Lane leftLane, final Lane rightLane, final boolean merging) {
+        this.incomingIndex = incomingIndex;
+        this.leftLane = leftLane;
+        this.rightLane = rightLane;
+        this.merging = merging;
     }
 
     @Override
@@ -0,0 +1,103 @@
+package ch.bfh.ti.jts.data;
+
+import java.io.Serializable;
+
+/**
+ * Ring buffer of the last lane changes of an agent. Used to animate lane
+ * changes without searching the saved simulation states.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class LaneChangeLog implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Simulation time [s] of the last state before the change.
+     */
+    private final double[]    times;
+    /**
+     * Id of the lane the agent left.
+     */
+    private final int[]       fromLaneIds;
+    /**
+     * Position of the agent on the lane it left.
+     */
+    private final double[]    xs;
+    private final double[]    ys;
+    /**
+     * Index of the next entry to write.
+     */
+    private int               next;
+    private int               size;
+
+    public LaneChangeLog(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity");
+        }
+        times = new double[capacity];
+        fromLaneIds = new int[capacity];
+        xs = new double[capacity];
+        ys = new double[capacity];
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * Finds the most recent lane change at or before a time.
+     *
+     * @param time
+     *            simulation time [s]
+     * @return index of the entry, -1 if there is none
+     */
+    public int find(final double time) {
+        for (int i = 1; i <= size; i++) {
+            final int index = (next - i + times.length) % times.length;
+            if (times[index] <= time) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    public int getFromLaneId(final int index) {
+        return fromLaneIds[index];
+    }
+
+    public double getTime(final int index) {
+        return times[index];
+    }
+
+    public double getX(final int index) {
+        return xs[index];
+    }
+
+    public double getY(final int index) {
+        return ys[index];
+    }
+
+    /**
+     * Records a lane change. Overwrites the oldest entry if full.
+     *
+     * @param time
+     *            simulation time [s] of the last state before the change
+     * @param fromLane
+     *            the lane the agent left
+     * @param x
+     *            x coordinate of the agent on the left lane
+     * @param y
+     *            y coordinate of the agent on the left lane
+     */
+    public void record(final double time, final Lane fromLane, final double x, final double y) {
+        times[next] = time;
+        fromLaneIds[next] = fromLane.getId();
+        xs[next] = x;
+        ys[next] = y;
+        next = (next + 1) % times.length;
+        size = Math.min(size + 1, times.length);
+    }
+}
@@ -1,23 +1,27 @@
 package ch.bfh.ti.jts.data;
 
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
-import java.lang.reflect.Constructor;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import ch.bfh.ti.jts.ai.Thinkable;
-import ch.bfh.ti.jts.ai.agents.IdleAgent;
 import ch.bfh.ti.jts.exceptions.ArgumentNullException;
 import ch.bfh.ti.jts.gui.Renderable;
 import ch.bfh.ti.jts.simulation.Simulatable;
@@ -25,6 +29,8 @@ import ch.bfh.ti.jts.utils.Config;
 import ch.bfh.ti.jts.utils.Helpers;
 import ch.bfh.ti.jts.utils.graph.GPS;
 import ch.bfh.ti.jts.utils.layers.Layers;
+import ch.bfh.ti.jts.utils.spatial.RTree;
+import ch.bfh.ti.jts.utils.spatial.SpatialGrid;
 
 /**
  * Data holder for a traffic net.
@@ -34,32 +40,136 @@ import ch.bfh.ti.jts.utils.layers.Layers;
  */
 public class Net extends Element implements Serializable, Simulatable {
 
-    private static final long              serialVersionUID  = 1L;
-    private static final Logger            log               = LogManager.getLogger(Net.class);
+    private static final long                         serialVersionUID  = 1L;
+    private static final Logger                       log               = LogManager.getLogger(Net.class);
+    /**
+     * Element types which are held in separate buckets. Queries for one of
+     * these types (or a subtype) only touch the elements of the bucket.
+     */
+    private static final Class<?>[]                   INDEXED_TYPES     = new Class<?>[] { Agent.class, Lane.class, Edge.class, Junction.class, Net.class };
+    /**
+     * Element types which are imported from xml source files and therefore
+     * can be looked up by name.
+     */
+    private static final Class<?>[]                   NAMED_TYPES       = new Class<?>[] { Lane.class, Edge.class, Junction.class };
+    /**
+     * Element types which are held in a spatial index. Agents are held in a
+     * grid which is rebuilt every tick, all the others in static R-trees.
+     */
+    private static final Class<?>[]                   SPATIAL_TYPES     = new Class<?>[] { Agent.class, Lane.class, Edge.class, Junction.class };
+    /**
+     * Side length [m] of the cells in the agent grid.
+     */
+    private static final double                       AGENT_CELL_SIZE   = Config.getInstance().getDouble("net.index.agents.cellsize", 50.0, 1.0, 10000.0);
+    /**
+     * Maximum number of despawned agents kept for reuse per agent type.
+     */
+    private static final int                          AGENT_POOL_SIZE   = Config.getInstance().getInt("net.agents.pool.size", 1000, 0, 1000000);
 
+    /**
+     * Poisson distributed flow arrivals instead of a fixed headway.
+     */
+    private final boolean                             FLOW_POISSON      = "poisson".equals(Config.getInstance().getEnum("net.spawning.flow.distribution", new String[] { "fixed", "poisson" }));
+    private final long                                FLOW_SEED         = Config.getInstance().getInt("net.spawning.flow.seed", 0);
     /**
      * Factor by which the spawning should take place. 1 means real time speed.
      * 1440 = 1 day in one minute
      */
-    private final double                   SPAWN_TIME_FACTOR = Config.getInstance().getDouble("net.spawning.timefactor", 1440.0, 0.0000000001, 10000000000.0);
-    private final Set<Element>             elements          = new HashSet<>();
-    private final Layers<Renderable>       renderables       = new Layers<>();
-    private final Set<Thinkable>           thinkables        = new HashSet<>();
-    private final Layers<Simulatable>      simulatables      = new Layers<>();
-    private final BlockingQueue<SpawnInfo> routes            = new LinkedBlockingQueue<>();
+    private final double                              SPAWN_TIME_FACTOR = Config.getInstance().getDouble("net.spawning.timefactor", 1440.0, 0.0000000001, 10000000000.0);
+    /**
+     * Simulation time [s] the routes of a {@link SpawnInfoSource} are
+     * scheduled in advance.
+     */
+    private final double                              SPAWN_LOOKAHEAD   = Config.getInstance().getDouble("net.spawning.lookahead", 10.0, 0.0, 3600.0);
+    private final Set<Element>                        elements          = new HashSet<>();
+    /**
+     * Elements by id.
+     */
+    private final Map<Integer, Element>               elementsById      = new HashMap<>();
+    /**
+     * Elements by indexed type. Key: one of {@link Net#INDEXED_TYPES}.
+     */
+    private final Map<Class<?>, Set<Element>>         typedElements     = new HashMap<>();
+    /**
+     * Elements by name. Key: one of {@link Net#NAMED_TYPES}, Value: name to
+     * element map.
+     */
+    private final Map<Class<?>, Map<String, Element>> namedElements     = new HashMap<>();
+    private final Layers<Renderable>                  renderables       = new Layers<>();
+    private final Set<Thinkable>                      thinkables        = new HashSet<>();
+    private final Layers<Simulatable>                 simulatables      = new Layers<>();
+    /**
+     * Pending spawns of routes and flows, ordered by departure.
+     */
+    private final SpawnScheduler                      spawnScheduler    = new SpawnScheduler();
+    /**
+     * Elements flagged as remove candidate since the last simulation step.
+     */
+    private final Queue<Element>                      removalQueue      = new ConcurrentLinkedQueue<>();
+    /**
+     * Random number generator for the flow headways. Part of the net to make
+     * the spawning reproducible.
+     */
+    private final Random                              flowRandom        = new Random(FLOW_SEED);
+    /**
+     * R-trees over the static elements. Key: one of
+     * {@link Net#SPATIAL_TYPES}. Built on demand.
+     */
+    private transient Map<Class<?>, RTree<Element>>   staticIndex;
+    /**
+     * Grid over the agents. Built on demand, dropped every tick.
+     */
+    private transient SpatialGrid<Element>            agentIndex;
+    /**
+     * Supplies the routes while the simulation runs. Not part of the copies of
+     * the net. Can be null.
+     */
+    private transient SpawnInfoSource                 spawnInfoSource;
+    /**
+     * Departure time up to which the routes of the spawn info source are
+     * scheduled.
+     */
+    private double                                    spawnSourceTime   = Double.NEGATIVE_INFINITY;
+    /**
+     * Despawned agents for reuse. Not part of the copies of the net.
+     */
+    private transient AgentPool                       agentPool;
+    /**
+     * Highest id of the elements in this net. Spawned agents get their ids
+     * from here.
+     */
+    private int                                       lastElementId;
     /**
      * Absolute time at simulated [s].
      */
-    private double                         simulationTime;
+    private double                                    simulationTime;
 
     public Net() {
         super("Net");
+        for (final Class<?> type : INDEXED_TYPES) {
+            typedElements.put(type, new HashSet<>());
+        }
+        for (final Class<?> type : NAMED_TYPES) {
+            namedElements.put(type, new HashMap<>());
+        }
         addElement(this);
     }
 
     public void addElement(final Element element) {
         // add element to net
         elements.add(element);
+        lastElementId = Math.max(lastElementId, element.getId());
+        elementsById.put(element.getId(), element);
+        // element of an indexed type?
+        final Class<?> indexedType = getIndexedType(element.getClass());
+        if (indexedType != null) {
+            typedElements.get(indexedType).add(element);
+            invalidateSpatialIndex(indexedType);
+            final Map<String, Element> names = namedElements.get(indexedType);
+            if (names != null && element.getName() != null) {
+                names.putIfAbsent(element.getName(), element);
+            }
+        }
         // set net on element
         element.setNet(this);
         // element renderable?
@@ -80,63 +190,85 @@ public class Net extends Element implements Serializable, Simulatable {
     }
 
     public void addRoutes(final Collection<SpawnInfo> routes) {
-        this.routes.addAll(routes);
-    }
-
-    private Agent createAgent(String name) {
-        if (name != null) {
-            if (!name.endsWith("Agent")) {
-                // add suffix
-                name = name.concat("Agent");
-            }
-            try {
-                // append namespace
-                name = String.format("ch.bfh.ti.jts.ai.agents.%s", name);
-                final Class<?> clazz = Class.forName(name);
-                final Constructor<?> ctor = clazz.getConstructor();
-                final Object object = ctor.newInstance();
-                log.debug("Create agent: " + object.getClass());
-
-                return (Agent) object;
-            } catch (final Exception e) {
-                log.warn("Creating agent failed: " + name);
+        for (final SpawnInfo route : routes) {
+            if (route instanceof Flow && ((Flow) route).getFrequency() <= 0) {
+                log.warn("Flow never spawns: frequency " + ((Flow) route).getFrequency());
+                continue;
             }
+            // departure time is scaled by the spawn time factor
+            spawnScheduler.schedule(route, route.getDepartureTime() / SPAWN_TIME_FACTOR);
         }
-        // default agent
-        log.debug("Create default agent: " + IdleAgent.class);
-        return new IdleAgent();
     }
 
-    private void doSpawning() {
-
-        final List<Route> routes = getRoutes().stream().sequential().filter(x -> x instanceof Route).filter(x -> x.getDepartureTime() < getSimulationTime() * SPAWN_TIME_FACTOR).map(x -> (Route) x)
-                .collect(Collectors.toList());
-        for (final Route route : routes) {
+    /**
+     * Freezes the connectivity of all junctions and lanes. Has to be called
+     * after the net was changed, otherwise the connectivity is built on first
+     * use.
+     */
+    public void buildTopology() {
+        getElementStream(Junction.class).forEach(element -> {
+            ((Junction) element).buildTopology();
+        });
+    }
 
+    private void doSpawning() {
+        if (spawnInfoSource != null) {
+            // schedule the routes of the look ahead window
+            final double departureTime = (getSimulationTime() + SPAWN_LOOKAHEAD) * SPAWN_TIME_FACTOR;
+            addRoutes(spawnInfoSource.poll(departureTime));
+            spawnSourceTime = Math.max(spawnSourceTime, departureTime);
+        }
+        // spawn everything which is due, flows may spawn multiple times
+        double time;
+        while ((time = spawnScheduler.getNextTime()) < getSimulationTime()) {
+            final SpawnInfo spawnInfo = spawnScheduler.pollDue(getSimulationTime());
             // create agent
-            final Agent agent = createAgent(route.getVehicle().getAgent());
-            spawn(route, agent);
+            final Agent agent = getAgentPool().acquire(spawnInfo.getVehicle());
+            spawn(spawnInfo, agent);
 
-            // remove route (one one spawn per route)
-            getRoutes().remove(route);
+            if (spawnInfo instanceof Flow) {
+                // reschedule flow (infinite spawning)
+                final double headway = ((Flow) spawnInfo).getHeadway(flowRandom, FLOW_POISSON);
+                spawnScheduler.schedule(spawnInfo, time + headway);
+            }
         }
+    }
 
-        final List<Flow> flows = getRoutes().stream().sequential().filter(x -> x instanceof Flow).filter(x -> x.getDepartureTime() < getSimulationTime() * SPAWN_TIME_FACTOR).map(x -> (Flow) x)
-                .collect(Collectors.toList());
-        for (final Flow flow : flows) {
-            if (flow.isSpawn(getSimulationTime())) {
+    /**
+     * Queues an element for removal at the end of the simulation step.
+     *
+     * @param element
+     *            element flagged as remove candidate
+     */
+    void enqueueRemoval(final Element element) {
+        removalQueue.add(element);
+    }
 
-                // create agent
-                final Agent agent = createAgent(flow.getVehicle().getAgent());
-                spawn(flow, agent);
+    public Element getElement(final int elementId) {
+        return elementsById.get(elementId);
+    }
 
-                // don't remove flow (infinite spawning)
-            }
+    private synchronized SpatialGrid<Element> getAgentIndex() {
+        if (agentIndex == null) {
+            final SpatialGrid<Element> index = new SpatialGrid<>(AGENT_CELL_SIZE);
+            typedElements.get(Agent.class).forEach(agent -> {
+                index.add(agent, agent.getPosition());
+            });
+            agentIndex = index;
         }
+        return agentIndex;
     }
 
-    public Element getElement(final int elementId) {
-        return elements.stream().filter(x -> x.getId() == elementId).findAny().orElse(null);
+    /**
+     * Gets the pool of despawned agents.
+     *
+     * @return the pool
+     */
+    public synchronized AgentPool getAgentPool() {
+        if (agentPool == null) {
+            agentPool = new AgentPool(AGENT_POOL_SIZE);
+        }
+        return agentPool;
     }
 
     /**
@@ -154,22 +286,95 @@ public class Net extends Element implements Serializable, Simulatable {
     public Optional<Element> getElementByCoordinates(final Point2D coordinates, final double maxDistance, final Class<?> type) {
         Optional<Element> nearestElement = Optional.empty();
         double minDistance = Double.MAX_VALUE;
-        final List<Element> elements = getElementStream(type).filter(x -> x.getDistance(coordinates) <= maxDistance).collect(Collectors.toList());
-        for (final Element element : elements) {
-            if (element.getDistance(coordinates) < minDistance) {
-                nearestElement = Optional.of(element);
-                minDistance = element.getDistance(coordinates);
+        for (final Class<?> spatialType : getSpatialTypes(type)) {
+            final Optional<Element> candidate;
+            if (spatialType == Agent.class) {
+                candidate = getAgentIndex().nearest(coordinates, maxDistance, x -> getDistance(x, coordinates, type));
+            } else {
+                candidate = getStaticIndex(spatialType).nearest(coordinates, maxDistance, x -> getDistance(x, coordinates, type));
+            }
+            if (candidate.isPresent() && candidate.get().getDistance(coordinates) < minDistance) {
+                nearestElement = candidate;
+                minDistance = candidate.get().getDistance(coordinates);
             }
         }
         return nearestElement;
     }
 
+    /**
+     * Returns all the elements whose bounding box intersects an area.
+     *
+     * @param area
+     *            the area in world coordinates
+     * @param type
+     *            type of the elements that should be considered
+     * @return elements in the area
+     */
+    public List<Element> getElementsInArea(final Rectangle2D area, final Class<?> type) {
+        final List<Element> elements = new ArrayList<>();
+        querySpatialIndex(area, type, elements::add);
+        return elements;
+    }
+
+    /**
+     * Returns all the elements which are at most a distance away from a
+     * coordinate pair.
+     *
+     * @param coordinates
+     *            the coordinates
+     * @param maxDistance
+     *            max distance that the elements can be away from the
+     *            coordinates [m]
+     * @param type
+     *            type of the elements that should be considered
+     * @return elements in range
+     */
+    public List<Element> getElementsInRange(final Point2D coordinates, final double maxDistance, final Class<?> type) {
+        final Rectangle2D area = new Rectangle2D.Double(coordinates.getX() - maxDistance, coordinates.getY() - maxDistance, 2 * maxDistance, 2 * maxDistance);
+        final List<Element> elements = new ArrayList<>();
+        querySpatialIndex(area, type, element -> {
+            if (element.getDistance(coordinates) <= maxDistance) {
+                elements.add(element);
+            }
+        });
+        return elements;
+    }
+
+    /**
+     * Gets an element imported from the xml source files by its name.
+     *
+     * @param name
+     *            the xml name of the element
+     * @param type
+     *            type of the element, one of {@link Net#NAMED_TYPES}
+     * @return the element, {@code null} if there is no such element
+     */
+    public <T extends Element> T getElementByName(final String name, final Class<T> type) {
+        if (name == null) {
+            throw new ArgumentNullException("name");
+        }
+        final Map<String, Element> names = namedElements.get(type);
+        if (names == null) {
+            throw new IllegalArgumentException("type is not named: " + type);
+        }
+        return type.cast(names.get(name));
+    }
+
     public Stream<Element> getElementStream() {
         return elements.stream().sequential();
     }
 
     public Stream<Element> getElementStream(final Class<?> filter) {
-        return elements.stream().sequential().filter(x -> filter.isAssignableFrom(x.getClass()));
+        final Class<?> indexedType = getIndexedType(filter);
+        if (indexedType == null) {
+            return elements.stream().sequential().filter(x -> filter.isAssignableFrom(x.getClass()));
+        }
+        final Stream<Element> stream = typedElements.get(indexedType).stream().sequential();
+        if (indexedType == filter) {
+            // whole bucket
+            return stream;
+        }
+        return stream.filter(x -> filter.isAssignableFrom(x.getClass()));
     }
 
     public Stream<Element> getElementStream(final Collection<Class<?>> filter) {
@@ -180,6 +385,34 @@ public class Net extends Element implements Serializable, Simulatable {
         return new GPS<Junction, Edge>(this);
     }
 
+    /**
+     * Distance from an element to the coordinates, infinite if the element is
+     * not of the specified type.
+     */
+    private double getDistance(final Element element, final Point2D coordinates, final Class<?> type) {
+        if (!type.isInstance(element)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return element.getDistance(coordinates);
+    }
+
+    /**
+     * Gets the indexed type a class belongs to.
+     *
+     * @param type
+     *            the class
+     * @return one of {@link Net#INDEXED_TYPES}, {@code null} if the class is
+     *         not covered by a bucket
+     */
+    private Class<?> getIndexedType(final Class<?> type) {
+        for (final Class<?> indexedType : INDEXED_TYPES) {
+            if (indexedType.isAssignableFrom(type)) {
+                return indexedType;
+            }
+        }
+        return null;
+    }
+
     @Override
     public Point2D getPosition() {
         return new Point2D.Double(); // not supported yet
@@ -189,8 +422,30 @@ public class Net extends Element implements Serializable, Simulatable {
         return renderables;
     }
 
+    /**
+     * Gets all the pending routes and flows.
+     *
+     * @return unmodifiable collection of spawn infos in departure order
+     */
     public Collection<SpawnInfo> getRoutes() {
-        return routes;
+        return Collections.unmodifiableCollection(spawnScheduler.getSpawnInfos());
+    }
+
+    /**
+     * Gets the spatial indexed types which can hold elements of a class.
+     *
+     * @param type
+     *            the class
+     * @return some of {@link Net#SPATIAL_TYPES}
+     */
+    private List<Class<?>> getSpatialTypes(final Class<?> type) {
+        final List<Class<?>> spatialTypes = new ArrayList<>();
+        for (final Class<?> spatialType : SPATIAL_TYPES) {
+            if (type.isAssignableFrom(spatialType) || spatialType.isAssignableFrom(type)) {
+                spatialTypes.add(spatialType);
+            }
+        }
+        return spatialTypes;
     }
 
     public Layers<Simulatable> getSimulatable() {
@@ -206,13 +461,61 @@ public class Net extends Element implements Serializable, Simulatable {
         return simulationTime;
     }
 
+    private synchronized RTree<Element> getStaticIndex(final Class<?> spatialType) {
+        if (staticIndex == null) {
+            staticIndex = new HashMap<>();
+        }
+        RTree<Element> index = staticIndex.get(spatialType);
+        if (index == null) {
+            index = new RTree<>(typedElements.get(spatialType), Element::getBounds);
+            staticIndex.put(spatialType, index);
+        }
+        return index;
+    }
+
     public Stream<Thinkable> getThinkableStream() {
         return thinkables.stream().parallel();
     }
 
+    private synchronized void invalidateSpatialIndex(final Class<?> indexedType) {
+        if (indexedType == Agent.class) {
+            agentIndex = null;
+        } else if (staticIndex != null) {
+            staticIndex.remove(indexedType);
+        }
+    }
+
+    /**
+     * Visits all elements of a type whose bounding box intersects an area.
+     */
+    private void querySpatialIndex(final Rectangle2D area, final Class<?> type, final Consumer<Element> consumer) {
+        final Consumer<Element> filteredConsumer = element -> {
+            if (type.isInstance(element)) {
+                consumer.accept(element);
+            }
+        };
+        for (final Class<?> spatialType : getSpatialTypes(type)) {
+            if (spatialType == Agent.class) {
+                getAgentIndex().query(area, filteredConsumer);
+            } else {
+                getStaticIndex(spatialType).query(area, filteredConsumer);
+            }
+        }
+    }
+
     private void removeElement(final Element element) {
 
         elements.remove(element);
+        elementsById.remove(element.getId());
+        final Class<?> indexedType = getIndexedType(element.getClass());
+        if (indexedType != null) {
+            typedElements.get(indexedType).remove(element);
+            invalidateSpatialIndex(indexedType);
+            final Map<String, Element> names = namedElements.get(indexedType);
+            if (names != null && element.getName() != null) {
+                names.remove(element.getName(), element);
+            }
+        }
         // set net on element
         element.setNet(this);
         // element renderable?
@@ -230,16 +533,48 @@ public class Net extends Element implements Serializable, Simulatable {
             final Simulatable simulatable = (Simulatable) element;
             simulatables.removeLayerable(simulatable.getSimulationLayer(), simulatable);
         }
+        // agent despawned?
+        if (element instanceof Agent) {
+            final Agent agent = (Agent) element;
+            if (agent.getLane() != null) {
+                agent.getLane().detachAgent(agent);
+            }
+            getAgentPool().release(agent);
+        }
+    }
+
+    /**
+     * Sets the source of routes which are scheduled while the simulation runs.
+     * The previous source is closed. If routes of a source were scheduled
+     * before, e.g. in a restored net, they are skipped in the new source.
+     *
+     * @param spawnInfoSource
+     *            the source, {@code null} to remove it
+     */
+    public synchronized void setSpawnInfoSource(final SpawnInfoSource spawnInfoSource) {
+        if (this.spawnInfoSource != null && this.spawnInfoSource != spawnInfoSource) {
+            this.spawnInfoSource.close();
+        }
+        if (spawnInfoSource != null && spawnInfoSource != this.spawnInfoSource && spawnSourceTime > Double.NEGATIVE_INFINITY) {
+            // already scheduled
+            spawnInfoSource.poll(spawnSourceTime);
+        }
+        this.spawnInfoSource = spawnInfoSource;
     }
 
     @Override
     public void simulate(final double duration) {
         simulationTime += duration;
+        // agents have moved
+        invalidateSpatialIndex(Agent.class);
         doSpawning();
         // remove all elements marked as remove candidate
-        getElementStream().filter(element -> element.isRemoveCandidate()).collect(Collectors.toList()).forEach(element -> {
-            removeElement(element);
-        });
+        Element element;
+        while ((element = removalQueue.poll()) != null) {
+            if (element.isRemoveCandidate() && elements.contains(element)) {
+                removeElement(element);
+            }
+        }
     }
 
     private void spawn(final SpawnInfo spawnInfo, final Agent agent) {
@@ -254,6 +589,8 @@ public class Net extends Element implements Serializable, Simulatable {
         }
 
         final double posOnLane = Helpers.clamp(spawnInfo.getDeparturePos(), 0.0, lane.getLength());
+        // pooled agents are reused, ids are not
+        agent.setId(++lastElementId);
         agent.init(posOnLane, spawnInfo.getVehicle(), spawnInfo.getDepartureSpeed(), spawnInfo);
 
         addElement(agent);
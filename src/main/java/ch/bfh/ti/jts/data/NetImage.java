@@ -0,0 +1,71 @@
+package ch.bfh.ti.jts.data;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.utils.deepcopy.FastByteArrayInputStream;
+import ch.bfh.ti.jts.utils.deepcopy.FastByteArrayOutputStream;
+
+/**
+ * Serialized image of a net as it was before the simulation started. Fresh
+ * copies of the net can be restored from it without importing the files
+ * again. The elements of a restored net keep their ids and new elements are
+ * numbered as in the original net.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class NetImage {
+
+    private final byte[] image;
+    /**
+     * Highest element id of the net.
+     */
+    private final int    lastId;
+
+    /**
+     * @param net
+     *            the net, must not have been simulated yet
+     */
+    public NetImage(final Net net) {
+        if (net == null) {
+            throw new ArgumentNullException("net");
+        }
+        try {
+            final FastByteArrayOutputStream output = new FastByteArrayOutputStream(1024 * 1024);
+            try (ObjectOutputStream out = new ObjectOutputStream(output)) {
+                out.writeObject(net);
+            }
+            image = Arrays.copyOf(output.getByteArray(), output.getSize());
+        } catch (final IOException ex) {
+            throw new RuntimeException("net not serializable", ex);
+        }
+        lastId = net.getElementStream().mapToInt(Element::getId).max().orElse(0);
+    }
+
+    /**
+     * @return size of the image [byte]
+     */
+    public int getSize() {
+        return image.length;
+    }
+
+    /**
+     * Restores a fresh copy of the net. Element ids continue after the
+     * elements of the net, as they did after the import.
+     *
+     * @return the net
+     */
+    public Net restore() {
+        try (ObjectInputStream in = new ObjectInputStream(new FastByteArrayInputStream(image, image.length))) {
+            final Net net = (Net) in.readObject();
+            Element.resetIds(lastId);
+            return net;
+        } catch (final IOException | ClassNotFoundException ex) {
+            throw new RuntimeException("net image corrupted", ex);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ch.bfh.ti.jts.data;
+
+import java.util.Collection;
+
+/**
+ * Supplies routes and flows in the order of their departure, e.g. streamed
+ * from a file while the simulation runs.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public interface SpawnInfoSource {
+
+    /**
+     * Frees the resources of the source. No more spawn infos are supplied
+     * afterwards.
+     */
+    void close();
+
+    /**
+     * Gets the spawn infos which weren't supplied yet and depart before a
+     * time.
+     *
+     * @param departureTime
+     *            departure time [s] as in {@link SpawnInfo#getDepartureTime()}
+     * @return spawn infos, empty if there are none
+     */
+    Collection<SpawnInfo> poll(double departureTime);
+}
@@ -0,0 +1,116 @@
+package ch.bfh.ti.jts.data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.PriorityQueue;
+
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Time ordered queue of pending spawns. Only the spawns which are due have to
+ * be touched in a simulation step.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class SpawnScheduler implements Serializable {
+
+    /**
+     * A spawn at a specific simulation time.
+     *
+     * @author Enteee
+     * @author winki
+     */
+    private static class SpawnEvent implements Serializable, Comparable<SpawnEvent> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final double      time;
+        /**
+         * Keeps spawns with the same time in insertion order.
+         */
+        private final long        sequence;
+        private final SpawnInfo   spawnInfo;
+
+        public SpawnEvent(final double time, final long sequence, final SpawnInfo spawnInfo) {
+            this.time = time;
+            this.sequence = sequence;
+            this.spawnInfo = spawnInfo;
+        }
+
+        @Override
+        public int compareTo(final SpawnEvent o) {
+            final int timeCompare = Double.compare(time, o.time);
+            if (timeCompare != 0) {
+                return timeCompare;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+
+    private static final long               serialVersionUID = 1L;
+
+    private final PriorityQueue<SpawnEvent> events           = new PriorityQueue<>();
+    private long                            nextSequence;
+
+    /**
+     * Gets all the pending spawns in time order.
+     *
+     * @return pending spawns
+     */
+    public synchronized Collection<SpawnInfo> getSpawnInfos() {
+        final PriorityQueue<SpawnEvent> copy = new PriorityQueue<>(events);
+        final Collection<SpawnInfo> spawnInfos = new ArrayList<>(copy.size());
+        while (!copy.isEmpty()) {
+            spawnInfos.add(copy.poll().spawnInfo);
+        }
+        return spawnInfos;
+    }
+
+    /**
+     * Time of the next pending spawn.
+     *
+     * @return simulation time [s], {@link Double#POSITIVE_INFINITY} if there
+     *         is no pending spawn
+     */
+    public synchronized double getNextTime() {
+        final SpawnEvent next = events.peek();
+        return next == null ? Double.POSITIVE_INFINITY : next.time;
+    }
+
+    /**
+     * Removes the next spawn if it is due.
+     *
+     * @param time
+     *            current simulation time [s]
+     * @return the spawn if its time is before the specified time,
+     *         {@code null} otherwise
+     */
+    public synchronized SpawnInfo pollDue(final double time) {
+        final SpawnEvent next = events.peek();
+        if (next == null || next.time >= time) {
+            return null;
+        }
+        return events.poll().spawnInfo;
+    }
+
+    /**
+     * Schedules a spawn.
+     *
+     * @param spawnInfo
+     *            the spawn
+     * @param time
+     *            simulation time [s] of the spawn
+     */
+    public synchronized void schedule(final SpawnInfo spawnInfo, final double time) {
+        if (spawnInfo == null) {
+            throw new ArgumentNullException("spawnInfo");
+        }
+        events.add(new SpawnEvent(time, nextSequence++, spawnInfo));
+    }
+
+    public synchronized int size() {
+        return events.size();
+    }
+}
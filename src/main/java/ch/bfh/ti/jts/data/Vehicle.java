@@ -4,6 +4,9 @@ import java.awt.Shape;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Path2D;
 import java.io.Serializable;
+import java.util.function.Supplier;
+
+import ch.bfh.ti.jts.ai.AgentFactory;
 
 /**
  * Vehicle which is used by agents.
@@ -22,40 +25,45 @@ public class Vehicle implements Serializable {
         return path;
     }
 
-    private static final long  serialVersionUID = 1L;
+    private static final long                   serialVersionUID = 1L;
 
     /**
      * Minimal acceleration (inclusive) [m/s^2]
      */
-    private final double       minAcceleration;
+    private final double                        minAcceleration;
     /**
      * Max acceleration (inclusive) [m/s^^]
      */
-    private final double       maxAcceleration;
+    private final double                        maxAcceleration;
     /**
      * Minimal velocity (inclusive) [m/s], 0 := agent can't reverse.
      */
-    private final double       minVelocity;
+    private final double                        minVelocity;
     /**
      * Max velocity (inclusive) [m/s]
      */
-    private final double       maxVelocity;
+    private final double                        maxVelocity;
     /**
      * Length of the vehicle [m]
      */
-    private final double       length;
+    private final double                        length;
     /**
      * Width of the vehicle [m]
      */
-    private final double       width            = 1.7;
+    private final double                        width            = 1.7;
     /**
      * String representing the agent class (without suffix "Agent").
      */
-    private final String       agent;
+    private final String                        agent;
+    /**
+     * Creates agents of the type {@link #agent}. Resolved when the vehicle is
+     * created and again on first use after deserialization.
+     */
+    private transient Supplier<? extends Agent> agentSupplier;
     /**
      * Shape.
      */
-    private final static Shape SHAPE            = buildShape();
+    private final static Shape                  SHAPE            = buildShape();
 
     public Vehicle() {
         this(-5, 5, 0, 33.3, 3, null);
@@ -74,6 +82,20 @@ public class Vehicle implements Serializable {
         this.maxVelocity = maxVelocity;
         this.length = length;
         this.agent = agent;
+        agentSupplier = AgentFactory.getInstance().getSupplier(agent);
+    }
+
+    /**
+     * Creates a new agent of the agent type of this vehicle.
+     *
+     * @return the agent
+     */
+    public Agent createAgent() {
+        if (agentSupplier == null) {
+            // not serialized
+            agentSupplier = AgentFactory.getInstance().getSupplier(agent);
+        }
+        return agentSupplier.get();
     }
 
     public String getAgent() {
@@ -0,0 +1,207 @@
+package ch.bfh.ti.jts.gui;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.imageio.ImageIO;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import ch.bfh.ti.jts.data.Element;
+import ch.bfh.ti.jts.data.Lane;
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.utils.Config;
+
+/**
+ * Writes saved simulation states as PNG images at a fixed simulation time
+ * interval. Frames are drawn and encoded by a pool of background threads, the
+ * simulation never waits for them. If the pool can't keep up, frames are
+ * dropped. Works without a display.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class FrameExporter {
+
+    private static final Logger            log             = LogManager.getLogger(FrameExporter.class);
+
+    /**
+     * Export frames at all?
+     */
+    public static final boolean            EXPORT_ENABLED  = Config.getInstance().getBool("export.enabled", false);
+    /**
+     * Directory the frames of each run are written to, in a sub directory
+     * named by the start time of the run.
+     */
+    private static final String            EXPORT_PATH     = Config.getInstance().getValue("export.path", "export");
+    /**
+     * Simulation time [s] between two frames.
+     */
+    private static final double            EXPORT_INTERVAL = Config.getInstance().getDouble("export.interval", 1.0, 0.0, 3600.0);
+    private static final int               EXPORT_WIDTH    = Config.getInstance().getInt("export.width", 1920, 1, 16384);
+    private static final int               EXPORT_HEIGHT   = Config.getInstance().getInt("export.height", 1080, 1, 16384);
+    /**
+     * Number of threads drawing and encoding frames.
+     */
+    private static final int               EXPORT_THREADS  = Config.getInstance().getInt("export.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2), 1, 64);
+    /**
+     * Maximum number of frames waiting for a thread.
+     */
+    private static final int               EXPORT_QUEUE    = Config.getInstance().getInt("export.queue", 64, 1, 10000);
+    /**
+     * Margin [m] around the net.
+     */
+    private static final double            NET_MARGIN      = 20.0;
+
+    private final File                     directory;
+    private final ThreadPoolExecutor       executor;
+    /**
+     * Renderer of each thread, so that the cached static geometry is reused.
+     */
+    private final ThreadLocal<NetRenderer> renderers       = ThreadLocal.withInitial(NetRenderer::new);
+    /**
+     * World to screen transformation, fits the whole net into the image.
+     * Computed from the first frame.
+     */
+    private volatile AffineTransform       transform;
+    /**
+     * Simulation time [s] of the next frame.
+     */
+    private double                         nextFrameTime   = Double.NEGATIVE_INFINITY;
+    private int                            frameNumber;
+    private final AtomicLong               written         = new AtomicLong();
+    private final AtomicLong               dropped         = new AtomicLong();
+
+    public FrameExporter() {
+        this(new File(EXPORT_PATH, new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())));
+    }
+
+    /**
+     * @param directory
+     *            directory to write the frames to, created if missing
+     */
+    public FrameExporter(final File directory) {
+        if (directory == null) {
+            throw new ArgumentNullException("directory");
+        }
+        this.directory = directory;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(EXPORT_THREADS, EXPORT_THREADS, 0, TimeUnit.SECONDS, new ArrayBlockingQueue<>(EXPORT_QUEUE), runnable -> {
+            final Thread thread = new Thread(runnable, "export-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (runnable, pool) -> {
+            // never block the simulation
+            if (dropped.incrementAndGet() == 1) {
+                log.warn("Frame export can't keep up, dropping frames");
+            }
+        });
+    }
+
+    /**
+     * Stops accepting frames and waits for the pending ones.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn(String.format("Frame export in %s not finished", directory));
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info(String.format("%d frames written to %s, %d dropped", written.get(), directory, dropped.get()));
+    }
+
+    private AffineTransform createTransform(final Net net) {
+        final Rectangle2D bounds = net.getElementStream(Lane.class).map(Element::getBounds).reduce((a, b) -> a.createUnion(b))
+                .orElse(new Rectangle2D.Double(0, 0, EXPORT_WIDTH, EXPORT_HEIGHT));
+        final double width = bounds.getWidth() + 2 * NET_MARGIN;
+        final double height = bounds.getHeight() + 2 * NET_MARGIN;
+        final double scale = Math.min(EXPORT_WIDTH / width, EXPORT_HEIGHT / height);
+        final AffineTransform transform = new AffineTransform();
+        // center of the net to center of the image
+        transform.translate(EXPORT_WIDTH / 2.0, EXPORT_HEIGHT / 2.0);
+        transform.scale(scale, scale);
+        transform.translate(-bounds.getCenterX(), -bounds.getCenterY());
+        return transform;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * Offers a saved simulation state. It is exported if the next frame is
+     * due. Must be called in the order of the simulation time.
+     *
+     * @param state
+     *            the state, must not change anymore
+     */
+    public void offer(final Net state) {
+        if (state == null) {
+            throw new ArgumentNullException("state");
+        }
+        final double time = state.getSimulationTime();
+        if (time < nextFrameTime) {
+            return;
+        }
+        if (transform == null) {
+            transform = createTransform(state);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                log.error(String.format("Can't create %s, frame export disabled", directory));
+                executor.shutdown();
+            }
+        }
+        // next frame on the cadence
+        nextFrameTime = EXPORT_INTERVAL > 0 ? (Math.floor(time / EXPORT_INTERVAL) + 1) * EXPORT_INTERVAL : time;
+        final File file = new File(directory, String.format("frame-%06d.png", frameNumber++));
+        if (!executor.isShutdown()) {
+            executor.execute(() -> write(state, file));
+        }
+    }
+
+    private void write(final Net state, final File file) {
+        final BufferedImage image = new BufferedImage(EXPORT_WIDTH, EXPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, EXPORT_WIDTH, EXPORT_HEIGHT);
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setTransform(transform);
+            final RenderContext context = new RenderContext(state, state.getSimulationTime(), transform, new Rectangle2D.Double(0, 0, EXPORT_WIDTH,
+                    EXPORT_HEIGHT));
+            renderers.get().render(g, context);
+        } catch (final Exception e) {
+            log.error(String.format("Can't draw frame %s", file), e);
+            return;
+        } finally {
+            g.dispose();
+        }
+        try {
+            ImageIO.write(image, "png", file);
+            written.incrementAndGet();
+        } catch (final IOException e) {
+            log.error(String.format("Can't write frame %s", file), e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ch.bfh.ti.jts.gui;
+
+import java.util.Arrays;
+
+/**
+ * Frame times of the last rendered frames.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class FrameStatistics {
+
+    /**
+     * Time [ns] spent rendering each frame.
+     */
+    private final long[] frameTimes;
+    /**
+     * Start time [ns] of each frame.
+     */
+    private final long[] frameStarts;
+    /**
+     * Index of the next entry to write.
+     */
+    private int          next;
+    private int          size;
+
+    /**
+     * @param capacity
+     *            number of frames to keep
+     */
+    public FrameStatistics(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity");
+        }
+        frameTimes = new long[capacity];
+        frameStarts = new long[capacity];
+    }
+
+    /**
+     * Records a frame.
+     *
+     * @param frameStart
+     *            start time of the frame [ns], as in {@link System#nanoTime()}
+     * @param frameTime
+     *            time spent rendering the frame [ns]
+     */
+    public synchronized void add(final long frameStart, final long frameTime) {
+        frameStarts[next] = frameStart;
+        frameTimes[next] = frameTime;
+        next = (next + 1) % frameTimes.length;
+        size = Math.min(size + 1, frameTimes.length);
+    }
+
+    /**
+     * Gets the rate at which the recorded frames were drawn.
+     *
+     * @return frames per second, 0 if less than two frames are recorded
+     */
+    public synchronized double getFramesPerSecond() {
+        if (size < 2) {
+            return 0.0;
+        }
+        final long first = frameStarts[(next - size + frameStarts.length) % frameStarts.length];
+        final long last = frameStarts[(next - 1 + frameStarts.length) % frameStarts.length];
+        return last == first ? 0.0 : (size - 1) * 1E9 / (last - first);
+    }
+
+    /**
+     * Gets a percentile of the recorded frame times.
+     *
+     * @param percentile
+     *            percentile in [0, 100]
+     * @return frame time [ms], 0 if no frame is recorded
+     */
+    public synchronized double getPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile");
+        }
+        if (size == 0) {
+            return 0.0;
+        }
+        final long[] sorted = Arrays.copyOf(frameTimes, size);
+        Arrays.sort(sorted);
+        // nearest rank
+        final int rank = (int) Math.ceil(percentile / 100 * size);
+        return sorted[Math.max(rank - 1, 0)] * 1E-6;
+    }
+
+    public synchronized int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,192 @@
+package ch.bfh.ti.jts.gui;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import ch.bfh.ti.jts.data.Agent;
+import ch.bfh.ti.jts.data.Element;
+import ch.bfh.ti.jts.data.Junction;
+import ch.bfh.ti.jts.data.Lane;
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.utils.Config;
+
+/**
+ * Draws the visible part of a net. Elements outside of the screen are culled
+ * with the spatial index of the net. When zoomed out, agents are left out and
+ * the lanes show the traffic as heat colors instead.
+ * <p>
+ * The static geometry is drawn into an image which is reused as long as the
+ * view and the appearance of the static elements don't change. Only the
+ * dynamic elements and overlays are drawn every frame.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class NetRenderer {
+
+    /**
+     * Margin [m] around the visible area. Elements are indexed by their
+     * position or by the bounds of their shape, but drawn with some extent.
+     */
+    private static final double                       VIEWPORT_MARGIN = 10.0;
+    /**
+     * Rendered classes. Key: render layer.
+     */
+    private static final SortedMap<Integer, Class<?>> LAYER_CLASSES   = new TreeMap<>();
+    /**
+     * Classes whose geometry never changes. Drawn into the cached image.
+     */
+    private static final List<Class<?>>               STATIC_CLASSES  = Arrays.asList(Lane.class, Junction.class);
+    /**
+     * Cache the static geometry?
+     */
+    private static final boolean                      CACHE_STATIC    = Config.getInstance().getBool("render.cache", true);
+
+    static {
+        for (final Map.Entry<Class<?>, Integer> entry : Renderable.KNOWN_CLASSES.entrySet()) {
+            LAYER_CLASSES.put(entry.getValue(), entry.getKey());
+        }
+    }
+
+    /**
+     * Drawing of the static layers.
+     */
+    private BufferedImage                             staticImage;
+    /**
+     * World to screen transformation of {@link NetRenderer#staticImage}.
+     */
+    private AffineTransform                           staticTransform;
+    /**
+     * Screen area of {@link NetRenderer#staticImage}.
+     */
+    private Rectangle2D                               staticScreenArea;
+    /**
+     * Hash of the static elements in {@link NetRenderer#staticImage}.
+     */
+    private int                                       staticHash;
+    /**
+     * How many times the static image was drawn.
+     */
+    private long                                      staticRedraws;
+
+    private Rectangle2D getCullingArea(final RenderContext context) {
+        final Rectangle2D visibleArea = context.getVisibleArea();
+        return new Rectangle2D.Double(visibleArea.getX() - VIEWPORT_MARGIN, visibleArea.getY() - VIEWPORT_MARGIN, visibleArea.getWidth() + 2 * VIEWPORT_MARGIN,
+                visibleArea.getHeight() + 2 * VIEWPORT_MARGIN);
+    }
+
+    /**
+     * Gets the number of times the cached static geometry was drawn.
+     *
+     * @return number of redraws
+     */
+    public long getStaticRedraws() {
+        return staticRedraws;
+    }
+
+    /**
+     * Draws the net of a frame.
+     *
+     * @param g
+     *            graphics with the world to screen transformation applied
+     * @param context
+     *            the frame
+     */
+    public void render(final Graphics2D g, final RenderContext context) {
+        if (g == null) {
+            throw new ArgumentNullException("g");
+        }
+        if (context == null) {
+            throw new ArgumentNullException("context");
+        }
+        final Net net = context.getNet();
+        final Rectangle2D area = getCullingArea(context);
+        // overlays are drawn on top of all layers
+        final List<Renderable> overlays = new ArrayList<>();
+        final List<Renderable> staticRenderables = new ArrayList<>();
+        for (final Class<?> type : LAYER_CLASSES.values()) {
+            if (type == Agent.class && !context.isAgentsVisible()) {
+                continue;
+            }
+            final List<Renderable> renderables = new ArrayList<>();
+            net.getElementsInArea(area, type).forEach(element -> renderables.add((Renderable) element));
+            overlays.addAll(renderables);
+            if (CACHE_STATIC && STATIC_CLASSES.contains(type)) {
+                // drawn all at once before the next dynamic layer
+                staticRenderables.addAll(renderables);
+                continue;
+            }
+            if (!staticRenderables.isEmpty()) {
+                renderStatic(g, context, staticRenderables);
+                staticRenderables.clear();
+            }
+            for (final Renderable renderable : renderables) {
+                renderable.render(g, context);
+            }
+        }
+        if (!staticRenderables.isEmpty()) {
+            renderStatic(g, context, staticRenderables);
+        }
+        for (final Renderable overlay : overlays) {
+            overlay.renderOverlay(g, context);
+        }
+    }
+
+    /**
+     * Draws the static elements from the cached image. The image is redrawn
+     * if the view or the appearance of an element changed.
+     */
+    private void renderStatic(final Graphics2D g, final RenderContext context, final List<Renderable> renderables) {
+        final Rectangle2D screenArea = context.getScreenArea();
+        final int width = (int) Math.ceil(screenArea.getWidth());
+        final int height = (int) Math.ceil(screenArea.getHeight());
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        int hash = 1;
+        for (final Renderable renderable : renderables) {
+            final Element element = (Element) renderable;
+            hash = 31 * hash + element.getId();
+            hash = 31 * hash + (element.getName() == null ? 0 : element.getName().hashCode());
+            hash = 31 * hash + renderable.getRenderHash(context);
+        }
+        if (staticImage == null || hash != staticHash || !context.getTransform().equals(staticTransform) || !screenArea.equals(staticScreenArea)) {
+            if (staticImage == null || staticImage.getWidth() != width || staticImage.getHeight() != height) {
+                staticImage = g.getDeviceConfiguration().createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+            }
+            final Graphics2D imageGraphics = staticImage.createGraphics();
+            try {
+                imageGraphics.setComposite(AlphaComposite.Clear);
+                imageGraphics.fillRect(0, 0, width, height);
+                imageGraphics.setComposite(AlphaComposite.SrcOver);
+                imageGraphics.setRenderingHints(g.getRenderingHints());
+                imageGraphics.translate(-screenArea.getX(), -screenArea.getY());
+                imageGraphics.transform(context.getTransform());
+                for (final Renderable renderable : renderables) {
+                    renderable.render(imageGraphics, context);
+                }
+            } finally {
+                imageGraphics.dispose();
+            }
+            staticHash = hash;
+            staticTransform = new AffineTransform(context.getTransform());
+            staticScreenArea = screenArea;
+            staticRedraws++;
+        }
+        final AffineTransform transform = g.getTransform();
+        g.setTransform(new AffineTransform());
+        g.drawImage(staticImage, (int) screenArea.getX(), (int) screenArea.getY(), null);
+        g.setTransform(transform);
+    }
+}
@@ -1,12 +1,12 @@
 package ch.bfh.ti.jts.gui;
 
 import java.awt.Shape;
+import java.awt.geom.Line2D;
 import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
 import java.io.Serializable;
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 import ch.bfh.ti.jts.exceptions.ArgumentNullException;
 import ch.bfh.ti.jts.utils.Helpers;
@@ -19,89 +19,236 @@ import ch.bfh.ti.jts.utils.Helpers;
  */
 public class PolyShape implements Serializable {
 
-    private static List<Point2D> buildPoints(final String shapeString) {
+    /**
+     * Checks that a shape string has an expected character at a position.
+     */
+    private static void expect(final String shapeString, final int position, final char expected) {
+        if (position >= shapeString.length() || shapeString.charAt(position) != expected) {
+            throw formatError(shapeString, position, "'" + expected + "'");
+        }
+    }
+
+    private static IllegalArgumentException formatError(final String shapeString, final int position, final String expected) {
+        final String found = position < shapeString.length() ? "'" + shapeString.charAt(position) + "'" : "end of string";
+        return new IllegalArgumentException(String.format("shapeString has wrong format at position %d: expected %s, found %s", position, expected, found));
+    }
+
+    private static boolean isDigit(final String shapeString, final int position) {
+        if (position >= shapeString.length()) {
+            return false;
+        }
+        final char c = shapeString.charAt(position);
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Parses a SUMO shape string in a single pass.
+     *
+     * @param shapeString
+     *            space separated points of comma separated coordinates, e.g.
+     *            {@code "0.00,1.50 2.00,-3.25"}
+     * @return the coordinates as in the string: x and y of the first point,
+     *         x and y of the second point and so on
+     * @throws IllegalArgumentException
+     *             if the string has a wrong format. The message contains the
+     *             position of the error.
+     */
+    public static double[] parseCoordinates(final String shapeString) {
         if (shapeString == null) {
             throw new ArgumentNullException("shapeString");
         }
-        if (!Pattern.matches(SHAPE_REGEX_STRING, shapeString)) {
-            throw new IllegalArgumentException("shapeString has wrong format");
+        int pointCount = 1;
+        for (int i = 0; i < shapeString.length(); i++) {
+            if (shapeString.charAt(i) == POINT_SEPARATOR) {
+                pointCount++;
+            }
+        }
+        final double[] coordinates = new double[2 * pointCount];
+        int position = 0;
+        for (int i = 0; i < coordinates.length; i += 2) {
+            if (i > 0) {
+                expect(shapeString, position++, POINT_SEPARATOR);
+            }
+            position = parseNumber(shapeString, position, coordinates, i);
+            expect(shapeString, position++, COORDINATE_SEPARATOR);
+            position = parseNumber(shapeString, position, coordinates, i + 1);
+        }
+        if (position != shapeString.length()) {
+            throw formatError(shapeString, position, "end of string");
+        }
+        return coordinates;
+    }
+
+    /**
+     * Parses a decimal number like {@code -12.34}.
+     *
+     * @param shapeString
+     *            the string
+     * @param start
+     *            position of the number
+     * @param output
+     *            array to write the number to
+     * @param index
+     *            index in the output array
+     * @return position after the number
+     */
+    private static int parseNumber(final String shapeString, final int start, final double[] output, final int index) {
+        int position = start;
+        final boolean negative = position < shapeString.length() && shapeString.charAt(position) == '-';
+        if (negative) {
+            position++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        if (!isDigit(shapeString, position)) {
+            throw formatError(shapeString, position, "digit");
         }
-        final List<Point2D> pointlist = new LinkedList<Point2D>();
-        final String[] points = shapeString.split(" ");
-        if (points.length == 0) {
-            throw new IllegalArgumentException("shapeString has wrong format");
+        while (isDigit(shapeString, position)) {
+            mantissa = mantissa * 10 + shapeString.charAt(position++) - '0';
+            digits++;
         }
-        for (final String point : points) {
-            final String[] coordinates = point.split(",");
-            if (coordinates.length != 2) {
-                throw new IllegalArgumentException("invalid coordinates");
+        if (position < shapeString.length() && shapeString.charAt(position) == '.') {
+            position++;
+            if (!isDigit(shapeString, position)) {
+                throw formatError(shapeString, position, "digit");
             }
-            // invert y coordinates (different origin in C++ and Java)!
-            final Point2D newPoint = new Point2D.Double(Double.valueOf(coordinates[0]), -Double.valueOf(coordinates[1]));
+            while (isDigit(shapeString, position)) {
+                mantissa = mantissa * 10 + shapeString.charAt(position++) - '0';
+                digits++;
+                fractionDigits++;
+            }
+        }
+        final double value;
+        if (digits <= EXACT_DIGITS && fractionDigits < POWERS_OF_TEN.length) {
+            // mantissa and power of ten are exact doubles: the division is
+            // rounded correctly, as by Double.parseDouble
+            value = mantissa / POWERS_OF_TEN[fractionDigits];
+        } else {
+            value = Double.parseDouble(shapeString.substring(negative ? start + 1 : start, position));
+        }
+        output[index] = negative ? -value : value;
+        return position;
+    }
 
-            pointlist.add(newPoint);
+    private static double[] toCoordinates(final List<Point2D> points) {
+        if (points == null) {
+            throw new ArgumentNullException("points");
         }
-        return pointlist;
+        final double[] coordinates = new double[2 * points.size()];
+        int i = 0;
+        for (final Point2D point : points) {
+            coordinates[i++] = point.getX();
+            coordinates[i++] = point.getY();
+        }
+        return coordinates;
     }
 
-    private static final long   serialVersionUID   = 1L;
+    private static double[] toJavaCoordinates(final double[] coordinates) {
+        // invert y coordinates (different origin in C++ and Java)!
+        for (int i = 1; i < coordinates.length; i += 2) {
+            coordinates[i] = -coordinates[i];
+        }
+        return coordinates;
+    }
 
-    private static final String SHAPE_REGEX_STRING = "^[-]?[0-9]+([.][0-9]+)[,][-]?[0-9]+([.][0-9]+)([ ][-]?[0-9]+([.][0-9]+)[,][-]?[0-9]+([.][0-9]+))*$";
-    private final List<Point2D> points;
-    private final Shape         shape;
-    private final double        length;
-    private final boolean       closedPath;
-    private Point2D             position;
+    private static final long     serialVersionUID     = 1L;
 
-    private double              orientation;
+    private static final char     POINT_SEPARATOR      = ' ';
+    private static final char     COORDINATE_SEPARATOR = ',';
+    /**
+     * Maximum number of digits which fit exactly into the mantissa of a
+     * double.
+     */
+    private static final int      EXACT_DIGITS         = 15;
+    /**
+     * Powers of ten which are exact doubles.
+     */
+    private static final double[] POWERS_OF_TEN        = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+    private final Shape           shape;
+    private final double          length;
+    private final boolean         closedPath;
+    /**
+     * Coordinates of the points.
+     */
+    private final double[]        xs;
+    private final double[]        ys;
+    /**
+     * Distance from the start point along the polygon to each point [m].
+     */
+    private final double[]        distances;
+    /**
+     * Orientation of each segment [rad].
+     */
+    private final double[]        headings;
+
+    /**
+     * @param coordinates
+     *            x and y of the first point, x and y of the second point and
+     *            so on
+     * @param closedPath
+     *            connect the last point to the first point?
+     */
+    public PolyShape(final double[] coordinates, final boolean closedPath) {
+        if (coordinates == null) {
+            throw new ArgumentNullException("coordinates");
+        }
+        if (coordinates.length == 0) {
+            throw new IllegalArgumentException("coordinates is empty");
+        }
+        if (coordinates.length % 2 != 0) {
+            throw new IllegalArgumentException("coordinates has an odd length");
+        }
+        this.closedPath = closedPath;
+        xs = new double[coordinates.length / 2];
+        ys = new double[coordinates.length / 2];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = coordinates[2 * i];
+            ys[i] = coordinates[2 * i + 1];
+        }
+        distances = buildDistances();
+        headings = buildHeadings();
+        shape = buildShape();
+        length = distances[distances.length - 1];
+    }
 
     public PolyShape(final List<Point2D> points) {
         this(points, false);
     }
 
     public PolyShape(final List<Point2D> points, final boolean closedPath) {
-        if (points == null) {
-            throw new ArgumentNullException("points");
-        }
-        if (points.size() == 0) {
-            throw new IllegalArgumentException("points is empty");
-        }
-        this.closedPath = closedPath;
-        this.points = points;
-        shape = buildShape();
-        length = buildLength();
+        this(toCoordinates(points), closedPath);
     }
 
     public PolyShape(final String shapeString) {
-        this(buildPoints(shapeString), false);
+        this(shapeString, false);
     }
 
     public PolyShape(final String shapeString, final boolean closedPath) {
-        this(buildPoints(shapeString), closedPath);
+        this(toJavaCoordinates(parseCoordinates(shapeString)), closedPath);
     }
 
-    private double buildLength() {
-        double length = 0;
-        if (points.size() > 1) {
-            Point2D last = points.get(0);
-            for (int i = 1; i < points.size(); i++) {
-                final Point2D current = points.get(i);
-                length += current.distance(last);
-                last = current;
-            }
+    private double[] buildDistances() {
+        final double[] distances = new double[xs.length];
+        for (int i = 1; i < xs.length; i++) {
+            distances[i] = distances[i - 1] + Point2D.distance(xs[i - 1], ys[i - 1], xs[i], ys[i]);
         }
-        return length;
+        return distances;
+    }
+
+    private double[] buildHeadings() {
+        final double[] headings = new double[Math.max(xs.length - 1, 0)];
+        for (int i = 0; i < headings.length; i++) {
+            headings[i] = Math.atan2(ys[i + 1] - ys[i], xs[i + 1] - xs[i]);
+        }
+        return headings;
     }
 
     private Shape buildShape() {
         final Path2D path = new Path2D.Double();
-        for (int i = 0; i < points.size(); i++) {
-            final Point2D point = points.get(i);
-            if (i == 0) {
-                path.moveTo(point.getX(), point.getY());
-            } else {
-                path.lineTo(point.getX(), point.getY());
-            }
+        path.moveTo(xs[0], ys[0]);
+        for (int i = 1; i < xs.length; i++) {
+            path.lineTo(xs[i], ys[i]);
         }
         if (closedPath) {
             path.closePath();
@@ -109,77 +256,106 @@ public class PolyShape implements Serializable {
         return path;
     }
 
-    private void calculate(double relative) {
-        relative = Helpers.clamp(relative, 0, 1.0);
-        if (points.size() == 2) {
-            final double x = getStartPoint().getX() + relative * (getEndPoint().getX() - getStartPoint().getX());
-            final double y = getStartPoint().getY() + relative * (getEndPoint().getY() - getStartPoint().getY());
-            position = new Point2D.Double(x, y);
-            orientation = getAngleBetweenTwoPoints(getStartPoint(), getEndPoint());
-        }
-        final double lengthOnPolyline = relative * length;
-        followPolygon(lengthOnPolyline, 0);
-    }
-
-    private void followPolygon(final double distanceToFollow, int segment) {
-        double distanceOnSegment;
-        if (segment > points.size() - 2) {
-            // if distance to follow is very small, we got an exception here
-            // so this trick solves the problem
-            segment = points.size() - 2; // last segment
-            final double relativePositionOnSegment = 1.0;
-            final Point2D segmentStart = points.get(segment);
-            final Point2D segmentEnd = points.get(segment + 1);
-            final double x = segmentStart.getX() + relativePositionOnSegment * (segmentEnd.getX() - segmentStart.getX());
-            final double y = segmentStart.getY() + relativePositionOnSegment * (segmentEnd.getY() - segmentStart.getY());
-            position = new Point2D.Double(x, y);
-            orientation = getAngleBetweenTwoPoints(segmentStart, segmentEnd);
-        }
-        distanceOnSegment = getSegmentLength(segment);
-        if (distanceToFollow <= distanceOnSegment) {
-            final double relativePositionOnSegment = distanceToFollow / distanceOnSegment;
-            final Point2D segmentStart = points.get(segment);
-            final Point2D segmentEnd = points.get(segment + 1);
-            final double x = segmentStart.getX() + relativePositionOnSegment * (segmentEnd.getX() - segmentStart.getX());
-            final double y = segmentStart.getY() + relativePositionOnSegment * (segmentEnd.getY() - segmentStart.getY());
-            position = new Point2D.Double(x, y);
-            orientation = getAngleBetweenTwoPoints(segmentStart, segmentEnd);
-        } else {
-            // pass junction and switch to an other lane
-            final double distanceToDriveOnNextSegment = distanceToFollow - distanceOnSegment;
-            followPolygon(distanceToDriveOnNextSegment, segment + 1);
+    /**
+     * Shortest distance from a point to this polygon.
+     *
+     * @param point
+     *            the point
+     * @return distance in [m]
+     */
+    public double getDistance(final Point2D point) {
+        final int last = xs.length - 1;
+        if (last == 0) {
+            return point.distance(xs[0], ys[0]);
         }
-    }
-
-    private double getAngleBetweenTwoPoints(final Point2D p1, final Point2D p2) {
-        final double dx = p2.getX() - p1.getX();
-        final double dy = p2.getY() - p1.getY();
-        return Math.atan2(dy, dx);
+        double distance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < last; i++) {
+            distance = Math.min(distance, Line2D.ptSegDist(xs[i], ys[i], xs[i + 1], ys[i + 1], point.getX(), point.getY()));
+        }
+        if (closedPath) {
+            distance = Math.min(distance, Line2D.ptSegDist(xs[last], ys[last], xs[0], ys[0], point.getX(), point.getY()));
+        }
+        return distance;
     }
 
     public Point2D getEndPoint() {
-        return points.get(points.size() - 1);
+        return new Point2D.Double(xs[xs.length - 1], ys[ys.length - 1]);
     }
 
     public double getLength() {
         return length;
     }
 
+    /**
+     * Gets the orientation of the polygon at a relative position.
+     *
+     * @param relative
+     *            relative position on the polygon, clamped to [0, 1]
+     * @return orientation [rad]
+     */
     public double getRelativeOrientation(final double relative) {
-        calculate(relative);
-        return orientation;
+        if (headings.length == 0) {
+            return 0.0;
+        }
+        return headings[getSegment(Helpers.clamp(relative, 0.0, 1.0) * length)];
     }
 
+    /**
+     * Gets the point at a relative position on the polygon.
+     *
+     * @param relative
+     *            relative position on the polygon, clamped to [0, 1]
+     * @return the point
+     */
     public Point2D getRelativePosition(final double relative) {
-        calculate(relative);
-        return position;
+        return getRelativePosition(relative, new Point2D.Double());
     }
 
-    private double getSegmentLength(final int index) {
-        if (index < 0 || index > points.size() - 2) {
-            throw new IndexOutOfBoundsException("index: " + index + " points.size: " + points.size());
+    /**
+     * Gets the point at a relative position on the polygon without allocating
+     * a new point. Safe to call concurrently.
+     *
+     * @param relative
+     *            relative position on the polygon, clamped to [0, 1]
+     * @param buffer
+     *            point to write the position to
+     * @return the buffer
+     */
+    public Point2D getRelativePosition(final double relative, final Point2D buffer) {
+        if (buffer == null) {
+            throw new ArgumentNullException("buffer");
+        }
+        if (headings.length == 0) {
+            buffer.setLocation(xs[0], ys[0]);
+            return buffer;
+        }
+        final double distance = Helpers.clamp(relative, 0.0, 1.0) * length;
+        final int segment = getSegment(distance);
+        final double segmentLength = distances[segment + 1] - distances[segment];
+        final double relativeOnSegment = segmentLength > 0 ? Helpers.clamp((distance - distances[segment]) / segmentLength, 0.0, 1.0) : 0.0;
+        buffer.setLocation(xs[segment] + relativeOnSegment * (xs[segment + 1] - xs[segment]), ys[segment] + relativeOnSegment * (ys[segment + 1] - ys[segment]));
+        return buffer;
+    }
+
+    /**
+     * Gets the segment which contains a distance along the polygon.
+     *
+     * @param distance
+     *            distance from the start point [m]
+     * @return index of the first segment ending at or after the distance
+     */
+    private int getSegment(final double distance) {
+        int index = Arrays.binarySearch(distances, 1, distances.length, distance);
+        if (index < 0) {
+            // insertion point: first point further away
+            index = -index - 1;
+        } else {
+            // several points can have the same distance: take the first
+            while (index > 1 && distances[index - 1] == distance) {
+                index--;
+            }
         }
-        return points.get(index).distance(points.get(index + 1));
+        return Helpers.clamp(index, 1, distances.length - 1) - 1;
     }
 
     public Shape getShape() {
@@ -187,6 +363,6 @@ public class PolyShape implements Serializable {
     }
 
     public Point2D getStartPoint() {
-        return points.get(0);
+        return new Point2D.Double(xs[0], ys[0]);
     }
 }
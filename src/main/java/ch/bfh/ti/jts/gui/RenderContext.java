@@ -0,0 +1,157 @@
+package ch.bfh.ti.jts.gui;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import ch.bfh.ti.jts.App;
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.utils.Config;
+
+/**
+ * Everything a {@link Renderable} needs to know about the frame it is drawn
+ * in. Built once per frame and only used by the rendering thread.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class RenderContext {
+
+    /**
+     * Minimum scale [px/m] at which agents are drawn. Below, lanes show the
+     * traffic as heat colors.
+     */
+    private static final double   AGENTS_MIN_SCALE = Config.getInstance().getDouble("render.lod.agents.scale", 0.5, 0.0, 1000.0);
+    /**
+     * Minimum size [px] of the font at which labels are drawn.
+     */
+    private static final double   LABELS_MIN_SIZE  = Config.getInstance().getDouble("render.lod.labels.size", 6.0, 0.0, 1000.0);
+
+    /**
+     * The state which is drawn.
+     */
+    private final Net             net;
+    /**
+     * Wall clock time of the frame [s].
+     */
+    private final double          wallClockTime;
+    /**
+     * World to screen transformation.
+     */
+    private final AffineTransform transform;
+    /**
+     * Reusable point for position queries while rendering.
+     */
+    private final Point2D         pointBuffer      = new Point2D.Double();
+    /**
+     * The area drawn to in screen coordinates.
+     */
+    private final Rectangle2D     screenArea;
+    /**
+     * Part of the world which is on the screen.
+     */
+    private final Rectangle2D     visibleArea;
+    /**
+     * Size of a meter on the screen [px].
+     */
+    private final double          scale;
+
+    /**
+     * @param net
+     *            the state to draw
+     * @param wallClockTime
+     *            wall clock time of the frame [s]
+     * @param transform
+     *            world to screen transformation
+     * @param screenArea
+     *            the area drawn to in screen coordinates
+     */
+    public RenderContext(final Net net, final double wallClockTime, final AffineTransform transform, final Rectangle2D screenArea) {
+        if (net == null) {
+            throw new ArgumentNullException("net");
+        }
+        if (transform == null) {
+            throw new ArgumentNullException("transform");
+        }
+        if (screenArea == null) {
+            throw new ArgumentNullException("screenArea");
+        }
+        this.net = net;
+        this.wallClockTime = wallClockTime;
+        this.transform = new AffineTransform(transform);
+        Rectangle2D visibleArea;
+        try {
+            visibleArea = transform.createInverse().createTransformedShape(screenArea).getBounds2D();
+        } catch (final NoninvertibleTransformException e) {
+            // nothing sensible to cull against
+            visibleArea = new Rectangle2D.Double(-Double.MAX_VALUE / 2, -Double.MAX_VALUE / 2, Double.MAX_VALUE, Double.MAX_VALUE);
+        }
+        this.visibleArea = visibleArea;
+        this.screenArea = (Rectangle2D) screenArea.clone();
+        scale = Math.sqrt(Math.abs(transform.getDeterminant()));
+    }
+
+    public Net getNet() {
+        return net;
+    }
+
+    /**
+     * Gets a point which can be overwritten for position queries. Valid until
+     * the next call.
+     *
+     * @return the point
+     */
+    public Point2D getPointBuffer() {
+        return pointBuffer;
+    }
+
+    /**
+     * Gets the size of a meter on the screen.
+     *
+     * @return scale [px/m]
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    public Rectangle2D getScreenArea() {
+        return screenArea;
+    }
+
+    public AffineTransform getTransform() {
+        return transform;
+    }
+
+    /**
+     * Gets the part of the world which is on the screen.
+     *
+     * @return area in world coordinates
+     */
+    public Rectangle2D getVisibleArea() {
+        return visibleArea;
+    }
+
+    public double getWallClockTime() {
+        return wallClockTime;
+    }
+
+    /**
+     * Are agents big enough on the screen to be drawn one by one?
+     *
+     * @return {@code true} if agents are drawn, {@code false} otherwise
+     */
+    public boolean isAgentsVisible() {
+        return scale >= AGENTS_MIN_SCALE;
+    }
+
+    /**
+     * Are labels big enough on the screen to be readable?
+     *
+     * @return {@code true} if labels are drawn, {@code false} otherwise
+     */
+    public boolean isLabelsVisible() {
+        return App.FONT.getSize2D() * scale >= LABELS_MIN_SIZE;
+    }
+}
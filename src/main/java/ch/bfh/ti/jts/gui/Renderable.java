@@ -3,12 +3,10 @@ package ch.bfh.ti.jts.gui;
 import java.awt.Graphics2D;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.NavigableMap;
 
 import ch.bfh.ti.jts.data.Agent;
 import ch.bfh.ti.jts.data.Junction;
 import ch.bfh.ti.jts.data.Lane;
-import ch.bfh.ti.jts.data.Net;
 
 /**
  * For all renderable elements.
@@ -44,6 +42,19 @@ public interface Renderable {
         return KNOWN_CLASSES.get(getClass());
     }
 
+    /**
+     * Gets a hash of everything that changes the appearance of the object,
+     * apart from the transformation of the frame. Used to decide whether a
+     * cached drawing of the object is still valid.
+     *
+     * @param context
+     *            the frame which is rendered
+     * @return the hash
+     */
+    default int getRenderHash(final RenderContext context) {
+        return 0;
+    }
+
     /**
      * Render the implementing object.
      *
@@ -52,16 +63,28 @@ public interface Renderable {
      */
     void render(final Graphics2D g);
 
+    /**
+     * Render the parts of the implementing object which change with every
+     * frame, e.g. labels. Drawn on top of cached drawings of
+     * {@link Renderable#render(Graphics2D, RenderContext)}.
+     *
+     * @param g
+     *            the object to render with.
+     * @param context
+     *            the frame which is rendered
+     */
+    default void renderOverlay(final Graphics2D g, final RenderContext context) {
+    }
+
     /**
      * Render the implementing object.
      *
      * @param g
      *            the object to render with.
-     * @param simulationStates
-     *            Saved simulation states. Key:= wall clock time [s].
-     *            Value:=@{link Net}
+     * @param context
+     *            the frame which is rendered
      */
-    default void render(final Graphics2D g, final NavigableMap<Double, Net> simulationStates) {
+    default void render(final Graphics2D g, final RenderContext context) {
         render(g);
     }
 }
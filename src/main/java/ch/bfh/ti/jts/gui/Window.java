@@ -1,13 +1,14 @@
 package ch.bfh.ti.jts.gui;
 
+import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Frame;
-import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.RenderingHints;
+import java.awt.Toolkit;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.KeyAdapter;
@@ -18,12 +19,14 @@ import java.awt.event.MouseWheelEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferStrategy;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
 import javax.swing.JFrame;
-import javax.swing.JPanel;
+import javax.swing.UIManager;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -36,8 +39,8 @@ import ch.bfh.ti.jts.data.Junction;
 import ch.bfh.ti.jts.data.Net;
 import ch.bfh.ti.jts.gui.console.Console;
 import ch.bfh.ti.jts.gui.console.JtsConsole;
+import ch.bfh.ti.jts.simulation.Simulation;
 import ch.bfh.ti.jts.utils.Config;
-import ch.bfh.ti.jts.utils.layers.Layers;
 
 /**
  * Window for the application.
@@ -51,77 +54,50 @@ public class Window {
 
         @Override
         public void componentResized(final ComponentEvent componentEvent) {
-            windoww = renderPanel.getWidth();
-            windowh = renderPanel.getHeight();
+            synchronized (Window.this) {
+                windoww = renderCanvas.getWidth();
+                windowh = renderCanvas.getHeight();
+            }
         }
     }
 
-    private class RenderPanel extends JPanel {
-
-        private static final long serialVersionUID = 1L;
+    /**
+     * Draws frames to the canvas until the window is hidden.
+     */
+    private class RenderLoop implements Runnable {
 
         @Override
-        public void paintComponent(final Graphics g) {
-            final Graphics2D g2d = (Graphics2D) g;
-            // simulate parts of the net
-            final Net wallClockSimulationState = App.getInstance().getSimulation().getWallCLockSimulationState();
-            try {
-                g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-                g2d.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 8));
-                t = new AffineTransform();
-                final AffineTransform tConsole = new AffineTransform(t);
-                // move to offset
-                t.translate(offset.getX(), offset.getY());
-                // transformation (scroll and zoom)
-                t.translate(zoomCenter.getX(), zoomCenter.getY());
-                // zoom
-                t.scale(1 / zoom, 1 / zoom);
-                // move to the zoom center
-                t.translate(-zoomCenter.getX(), -zoomCenter.getY());
-                if (Main.DEBUG) {
-                    g2d.setColor(Color.GREEN);
-                    g2d.drawLine(0, 0, (int) offset.getX(), (int) offset.getY());
-                    g2d.drawLine((int) zoomCenter.getX() - 10, (int) zoomCenter.getY(), (int) zoomCenter.getX() + 10, (int) zoomCenter.getY());
-                    g2d.drawLine((int) zoomCenter.getX(), (int) zoomCenter.getY() - 10, (int) zoomCenter.getX(), (int) zoomCenter.getY() + 10);
-                }
-                g2d.setTransform(t);
-                if (Main.DEBUG) {
-                    g2d.setColor(Color.RED);
-                    g2d.drawLine(-20, 0, 20, 0);
-                    g2d.drawLine(0, -20, 0, 20);
-                    g2d.drawLine((int) zoomCenter.getX() - 10, (int) zoomCenter.getY(), (int) zoomCenter.getX() + 10, (int) zoomCenter.getY());
-                    g2d.drawLine((int) zoomCenter.getX(), (int) zoomCenter.getY() - 10, (int) zoomCenter.getX(), (int) zoomCenter.getY() + 10);
-                }
-                // center on screen
-                g2d.transform(AffineTransform.getTranslateInstance(windoww / 2, windowh / 2));
-
+        public void run() {
+            final BufferStrategy strategy = renderCanvas.getBufferStrategy();
+            final long frameInterval = (long) (1E9 / MAX_FRAMES_PER_SECOND);
+            while (visible && !Thread.interrupted()) {
+                final long frameStart = System.nanoTime();
                 try {
-                    // save inverse transformation to get world coordinates from
-                    // screen coordinates later
-                    screenToWorldTransform = g2d.getTransform().createInverse();
-                } catch (final NoninvertibleTransformException e) {
-                    log.error("Can not invert world-->screen matrix.", e);
-                }
-
-                // render everything
-                final Layers<Renderable> renderables = wallClockSimulationState.getRenderable();
-                for (final int layer : renderables.getLayersIterator()) {
-                    renderables.getLayerStream(layer).sequential().forEach(e -> {
-                        e.render(g2d, App.getInstance().getSimulation().getSavedStates());
-                    });
+                    do {
+                        do {
+                            final Graphics2D g2d = (Graphics2D) strategy.getDrawGraphics();
+                            try {
+                                render(g2d);
+                            } finally {
+                                g2d.dispose();
+                            }
+                        } while (strategy.contentsRestored());
+                        strategy.show();
+                    } while (strategy.contentsLost());
+                    Toolkit.getDefaultToolkit().sync();
+                } catch (final Exception e) {
+                    log.error("Rendering frame failed", e);
                 }
-                // render console
-                g2d.setTransform(tConsole);
-                console.render(g2d);
-
-                // Let the OS have a little time...
-                Thread.yield();
-
-                // repaint after every step
-                frame.repaint();
-            } finally {
-                if (g2d != null) {
-                    g2d.dispose();
+                final long frameEnd = System.nanoTime();
+                frameStatistics.add(frameStart, frameEnd - frameStart);
+                // leave the rest of the frame to the simulation
+                final long sleep = frameStart + frameInterval - frameEnd;
+                if (sleep > 0) {
+                    try {
+                        Thread.sleep(sleep / 1000000, (int) (sleep % 1000000));
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
                 }
             }
         }
@@ -160,7 +136,9 @@ public class Window {
             if (isDown) {
                 final double deltaX = e.getX() - mousePressedPoint.getX();
                 final double deltaY = e.getY() - mousePressedPoint.getY();
-                offset.setLocation(offset.getX() + deltaX, offset.getY() + deltaY);
+                synchronized (Window.this) {
+                    offset.setLocation(offset.getX() + deltaX, offset.getY() + deltaY);
+                }
                 mousePressedPoint = e.getPoint();
             }
         }
@@ -195,26 +173,28 @@ public class Window {
 
         @Override
         public void mouseWheelMoved(final MouseWheelEvent mouseEvent) {
-            final Point mousePoint = mouseEvent.getPoint();
-            // set zoom center relative to no zoom
-            final int rotation = mouseEvent.getWheelRotation();
-            double zoomDelta = 0;
-            if (rotation < 0 && zoom >= ZOOM_DELTA) {
-                // zoom in
-                zoomDelta = -ZOOM_DELTA;
-            } else if (rotation > 0) {
-                // zoom out
-                zoomDelta = ZOOM_DELTA;
-            }
-            // change zoom
-            zoom += zoomDelta;
-            try {
-                final Point mousePointInverse = new Point();
-                t.inverseTransform(mousePoint, mousePointInverse);
-                zoomCenter.setLocation(mousePointInverse.getX(), mousePointInverse.getY());
-                offset.setLocation(mousePoint.getX() - mousePointInverse.getX(), mousePoint.getY() - mousePointInverse.getY());
-            } catch (final NoninvertibleTransformException e) {
-                log.error("Can not invert mouse drag vector", e);
+            synchronized (Window.this) {
+                final Point mousePoint = mouseEvent.getPoint();
+                // set zoom center relative to no zoom
+                final int rotation = mouseEvent.getWheelRotation();
+                double zoomDelta = 0;
+                if (rotation < 0 && zoom >= ZOOM_DELTA) {
+                    // zoom in
+                    zoomDelta = -ZOOM_DELTA;
+                } else if (rotation > 0) {
+                    // zoom out
+                    zoomDelta = ZOOM_DELTA;
+                }
+                // change zoom
+                zoom += zoomDelta;
+                try {
+                    final Point mousePointInverse = new Point();
+                    t.inverseTransform(mousePoint, mousePointInverse);
+                    zoomCenter.setLocation(mousePointInverse.getX(), mousePointInverse.getY());
+                    offset.setLocation(mousePoint.getX() - mousePointInverse.getX(), mousePoint.getY() - mousePointInverse.getY());
+                } catch (final NoninvertibleTransformException e) {
+                    log.error("Can not invert mouse drag vector", e);
+                }
             }
         }
     }
@@ -228,38 +208,54 @@ public class Window {
         return INSTANCE;
     }
 
-    private static final Logger log                    = LogManager.getLogger(Window.class);
+    private static final Logger      log                    = LogManager.getLogger(Window.class);
 
     /**
      * Zoom delta. Determines how much to change the zoom when scrolling. Also
      * sets the minimum zoom
      */
-    private static final double ZOOM_DELTA             = 0.05;
+    private static final double      ZOOM_DELTA             = 0.05;
 
     /**
      * The click radius when selectimg elements;
      */
-    private static final double CLICK_RADIUS           = Config.getInstance().getDouble("click.radius", 30.0, 0.0, 1000.0);
+    private static final double      CLICK_RADIUS           = Config.getInstance().getDouble("click.radius", 30.0, 0.0, 1000.0);
 
-    private static final Window INSTANCE               = new Window();
-    private final JFrame        frame;
-    private final JPanel        renderPanel;
-    private int                 windoww                = 1000;
-    private int                 windowh                = 600;
+    /**
+     * Maximum number of frames rendered per second.
+     */
+    private static final double      MAX_FRAMES_PER_SECOND  = Config.getInstance().getDouble("window.fps", 60.0, 1.0, 1000.0);
+    /**
+     * Number of frames the frame times are kept for.
+     */
+    private static final int         FRAME_STATISTICS_SIZE  = 300;
+
+    private static final Window      INSTANCE               = new Window();
+    private final JFrame             frame;
+    private final Canvas             renderCanvas;
+    /**
+     * Size of the canvas [px]. Guarded by the window.
+     */
+    private int                      windoww                = 1000;
+    private int                      windowh                = 600;
     /**
      * Offset in x and y direction from (0/0)
      */
-    private final Point2D       offset                 = new Point2D.Double();
+    private final Point2D            offset                 = new Point2D.Double();
     /**
      * Zoom factor
      */
-    private double              zoom                   = 1;
-    private AffineTransform     t                      = new AffineTransform();
-    private AffineTransform     screenToWorldTransform = new AffineTransform();
-
-    private final Point2D       zoomCenter             = new Point2D.Double();
-    private final Set<Integer>  keys                   = new HashSet<Integer>();
-    private final Console       console                = new JtsConsole();
+    private double                   zoom                   = 1;
+    private AffineTransform          t                      = new AffineTransform();
+    private volatile AffineTransform screenToWorldTransform = new AffineTransform();
+
+    private final Point2D            zoomCenter             = new Point2D.Double();
+    private final Set<Integer>       keys                   = new HashSet<Integer>();
+    private final Console            console                = new JtsConsole();
+    private final NetRenderer        netRenderer            = new NetRenderer();
+    private final FrameStatistics    frameStatistics        = new FrameStatistics(FRAME_STATISTICS_SIZE);
+    private volatile boolean         visible;
+    private Thread                   renderThread;
 
     public Window() {
         frame = new JFrame();
@@ -269,21 +265,103 @@ public class Window {
         frame.setMinimumSize(new Dimension(800, 600));
         frame.setExtendedState(Frame.MAXIMIZED_BOTH);
         frame.addComponentListener(new FrameComponentAdapter());
-        renderPanel = new Window.RenderPanel();
+        // drawn by the render thread only
+        renderCanvas = new Canvas();
+        renderCanvas.setIgnoreRepaint(true);
+        renderCanvas.setFocusable(false);
+        renderCanvas.setBackground(UIManager.getColor("Panel.background"));
         final MouseAdapter renderPanelMouseAdaptor = new RenderPanelMouseAdapter();
         frame.addKeyListener(new RenderPanelKeyAdapter());
-        renderPanel.addMouseListener(renderPanelMouseAdaptor);
-        renderPanel.addMouseMotionListener(renderPanelMouseAdaptor);
-        renderPanel.addMouseWheelListener(renderPanelMouseAdaptor);
-        frame.setContentPane(renderPanel);
+        renderCanvas.addMouseListener(renderPanelMouseAdaptor);
+        renderCanvas.addMouseMotionListener(renderPanelMouseAdaptor);
+        renderCanvas.addMouseWheelListener(renderPanelMouseAdaptor);
+        frame.add(renderCanvas);
     }
 
     public Console getConsole() {
         return console;
     }
 
+    /**
+     * Gets the times of the last rendered frames.
+     *
+     * @return frame statistics
+     */
+    public FrameStatistics getFrameStatistics() {
+        return frameStatistics;
+    }
+
+    private void render(final Graphics2D g2d) {
+        // simulate parts of the net
+        final Net wallClockSimulationState = App.getInstance().getSimulation().getWallCLockSimulationState();
+        final int width;
+        final int height;
+        final AffineTransform tConsole = new AffineTransform();
+        synchronized (this) {
+            width = windoww;
+            height = windowh;
+            g2d.setColor(renderCanvas.getBackground());
+            g2d.fillRect(0, 0, width, height);
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 8));
+            t = new AffineTransform();
+            // move to offset
+            t.translate(offset.getX(), offset.getY());
+            // transformation (scroll and zoom)
+            t.translate(zoomCenter.getX(), zoomCenter.getY());
+            // zoom
+            t.scale(1 / zoom, 1 / zoom);
+            // move to the zoom center
+            t.translate(-zoomCenter.getX(), -zoomCenter.getY());
+            if (Main.DEBUG) {
+                g2d.setColor(Color.GREEN);
+                g2d.drawLine(0, 0, (int) offset.getX(), (int) offset.getY());
+                g2d.drawLine((int) zoomCenter.getX() - 10, (int) zoomCenter.getY(), (int) zoomCenter.getX() + 10, (int) zoomCenter.getY());
+                g2d.drawLine((int) zoomCenter.getX(), (int) zoomCenter.getY() - 10, (int) zoomCenter.getX(), (int) zoomCenter.getY() + 10);
+            }
+            g2d.setTransform(t);
+            if (Main.DEBUG) {
+                g2d.setColor(Color.RED);
+                g2d.drawLine(-20, 0, 20, 0);
+                g2d.drawLine(0, -20, 0, 20);
+                g2d.drawLine((int) zoomCenter.getX() - 10, (int) zoomCenter.getY(), (int) zoomCenter.getX() + 10, (int) zoomCenter.getY());
+                g2d.drawLine((int) zoomCenter.getX(), (int) zoomCenter.getY() - 10, (int) zoomCenter.getX(), (int) zoomCenter.getY() + 10);
+            }
+        }
+        // center on screen
+        g2d.transform(AffineTransform.getTranslateInstance(width / 2, height / 2));
+
+        try {
+            // save inverse transformation to get world coordinates from
+            // screen coordinates later
+            screenToWorldTransform = g2d.getTransform().createInverse();
+        } catch (final NoninvertibleTransformException e) {
+            log.error("Can not invert world-->screen matrix.", e);
+        }
+
+        // render everything
+        final Simulation simulation = App.getInstance().getSimulation();
+        final RenderContext context = new RenderContext(wallClockSimulationState, simulation.getWallClockTime(), g2d.getTransform(),
+                new Rectangle2D.Double(0, 0, width, height));
+        netRenderer.render(g2d, context);
+        // render console
+        g2d.setTransform(tConsole);
+        console.render(g2d);
+    }
+
     public void setVisible(final boolean visible) {
         frame.setVisible(visible);
+        if (visible && renderThread == null) {
+            this.visible = true;
+            renderCanvas.createBufferStrategy(2);
+            renderThread = new Thread(new RenderLoop(), "render");
+            renderThread.setDaemon(true);
+            renderThread.start();
+        } else if (!visible && renderThread != null) {
+            this.visible = false;
+            renderThread.interrupt();
+            renderThread = null;
+        }
     }
 
 }
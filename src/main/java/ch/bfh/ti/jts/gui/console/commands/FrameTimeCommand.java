@@ -0,0 +1,30 @@
+package ch.bfh.ti.jts.gui.console.commands;
+
+import java.util.Optional;
+
+import ch.bfh.ti.jts.App;
+import ch.bfh.ti.jts.gui.FrameStatistics;
+import ch.bfh.ti.jts.gui.Window;
+
+import com.beust.jcommander.Parameters;
+
+@Parameters(commandDescription = "Show frame time percentiles")
+public class FrameTimeCommand extends Command {
+
+    @Override
+    public Optional<String> execute(final Object executor) {
+        final FrameStatistics statistics = Window.getInstance().getFrameStatistics();
+        return Optional.of(String.format("Frame time [ms] of the last %d frames: p50 %.2f, p90 %.2f, p99 %.2f, max %.2f (%.1f fps)", statistics.getSize(),
+                statistics.getPercentile(50), statistics.getPercentile(90), statistics.getPercentile(99), statistics.getPercentile(100), statistics.getFramesPerSecond()));
+    }
+
+    @Override
+    public String getName() {
+        return "frametime";
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return App.class;
+    }
+}
@@ -0,0 +1,32 @@
+package ch.bfh.ti.jts.gui.console.commands;
+
+import java.util.Optional;
+
+import ch.bfh.ti.jts.data.AgentPool;
+import ch.bfh.ti.jts.data.Net;
+
+import com.beust.jcommander.Parameters;
+
+@Parameters(commandDescription = "Show agent pool statistics")
+public class PoolCommand extends Command {
+
+    @Override
+    public Optional<String> execute(final Object executor) {
+        final Net net = (Net) executor;
+        final AgentPool pool = net.getAgentPool();
+        final long requests = pool.getHits() + pool.getMisses();
+        final double hitRate = requests == 0 ? 0.0 : (double) pool.getHits() / requests;
+        return Optional.of(String.format("Agent pool: %d pooled, %d hits, %d misses (hit rate %.2f), %d dropped", pool.getSize(), pool.getHits(), pool.getMisses(), hitRate,
+                pool.getDrops()));
+    }
+
+    @Override
+    public String getName() {
+        return "pool";
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return Net.class;
+    }
+}
@@ -0,0 +1,42 @@
+package ch.bfh.ti.jts.gui.console.commands;
+
+import java.io.File;
+import java.util.Optional;
+
+import ch.bfh.ti.jts.App;
+import ch.bfh.ti.jts.simulation.Checkpointer;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+@Parameters(commandDescription = "Resume the simulation from a checkpoint")
+public class ResumeCommand extends Command {
+
+    @Parameter(names = { "-file", "-f" }, description = "Checkpoint file, the most recent one if omitted")
+    private String file = null;
+
+    @Override
+    public Optional<String> execute(final Object executor) {
+        final App app = (App) executor;
+        if (app == null) {
+            throw new IllegalArgumentException("app");
+        }
+        final File checkpoint = file == null ? Checkpointer.getLatest() : new File(file);
+        file = null; // reset value
+        if (checkpoint == null) {
+            return Optional.of("no checkpoint found");
+        }
+        app.resume(checkpoint);
+        return Optional.of("simulation resumed from " + checkpoint);
+    }
+
+    @Override
+    public String getName() {
+        return "resume";
+    }
+
+    @Override
+    public Class<?> getTargetType() {
+        return App.class;
+    }
+}
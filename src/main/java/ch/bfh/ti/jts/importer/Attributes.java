@@ -0,0 +1,56 @@
+package ch.bfh.ti.jts.importer;
+
+/**
+ * Parses attribute values of imported files directly into primitives, without
+ * reflection or boxing.
+ *
+ * @author Enteee
+ * @author winki
+ */
+class Attributes {
+
+    /**
+     * Parses a double value.
+     *
+     * @param attributeName
+     *            name of the attribute, for error messages
+     * @param value
+     *            attribute value
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the value is missing or not a number
+     */
+    public static double parseDouble(final String attributeName, final String value) {
+        try {
+            return Double.parseDouble(require(attributeName, value));
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format("illegal value of attribute %s: %s", attributeName, value), ex);
+        }
+    }
+
+    /**
+     * Parses an integer value.
+     *
+     * @param attributeName
+     *            name of the attribute, for error messages
+     * @param value
+     *            attribute value
+     * @return the value
+     * @throws IllegalArgumentException
+     *             if the value is missing or not an integer
+     */
+    public static int parseInt(final String attributeName, final String value) {
+        try {
+            return Integer.parseInt(require(attributeName, value));
+        } catch (final NumberFormatException ex) {
+            throw new IllegalArgumentException(String.format("illegal value of attribute %s: %s", attributeName, value), ex);
+        }
+    }
+
+    private static String require(final String attributeName, final String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("missing attribute " + attributeName);
+        }
+        return value;
+    }
+}
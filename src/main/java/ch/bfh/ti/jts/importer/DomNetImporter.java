@@ -0,0 +1,96 @@
+package ch.bfh.ti.jts.importer;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.importer.NetBuilder.EdgeRecord;
+
+/**
+ * Imports SUMO road network files from a DOM. Keeps the whole file in memory,
+ * {@link NetImporter} should be preferred.
+ *
+ * @see <a href="http://sumo.dlr.de/wiki/Networks/SUMO_Road_Networks">SUMO Road
+ *      Networks</a>
+ * @author Enteee
+ * @author winki
+ */
+public class DomNetImporter extends Importer<Net> {
+
+    private NetBuilder builder;
+
+    private void extractConnection(final Node node) {
+        if (node == null) {
+            throw new ArgumentNullException("node");
+        }
+        final String from = getString(node, "from");
+        final String to = getString(node, "to");
+        final int fromLane = getInt(node, "fromLane");
+        final int toLane = getInt(node, "toLane");
+        builder.addConnection(from, fromLane, to, toLane);
+    }
+
+    @Override
+    protected Net extractData(final Document document) {
+        builder = new NetBuilder();
+        final Node root = document.getDocumentElement();
+        final NodeList nodes = root.getChildNodes();
+        for (int i = 1; i < nodes.getLength(); i++) {
+            final Node node = nodes.item(i);
+            if (node.getNodeName().equals("location")) {
+                extractLocation(node);
+            } else if (node.getNodeName().equals("edge")) {
+                extractEdge(node);
+            } else if (node.getNodeName().equals("junction")) {
+                extractJunction(node);
+            } else if (node.getNodeName().equals("connection")) {
+                extractConnection(node);
+            }
+        }
+        return builder.build();
+    }
+
+    private void extractEdge(final Node node) {
+        if (node == null) {
+            throw new ArgumentNullException("node");
+        }
+        final String id = getString(node, "id");
+        final String from = getString(node, "from");
+        final String to = getString(node, "to");
+        final int priority = getInt(node, "priority");
+        final EdgeRecord edge = builder.addEdge(id, from, to, priority);
+        final NodeList nodes = node.getChildNodes();
+        for (int i = 1; i < nodes.getLength(); i++) {
+            final Node child = nodes.item(i);
+            if (child.getNodeName().equals("lane")) {
+                extractLane(child, edge);
+            }
+        }
+    }
+
+    private void extractJunction(final Node node) {
+        if (node == null) {
+            throw new ArgumentNullException("node");
+        }
+        final String id = getString(node, "id");
+        final double x = getDouble(node, "x");
+        final double y = getDouble(node, "y");
+        builder.addJunction(id, x, y, getString(node, "shape"));
+    }
+
+    private void extractLane(final Node node, final EdgeRecord edge) {
+        if (node == null) {
+            throw new ArgumentNullException("node");
+        }
+        final String id = getString(node, "id");
+        final int index = getInt(node, "index");
+        final double speed = getDouble(node, "speed");
+        final double length = getDouble(node, "length");
+        builder.addLane(edge, id, index, speed, length, getString(node, "shape"));
+    }
+
+    private void extractLocation(final Node node) {
+    }
+}
@@ -1,7 +1,5 @@
 package ch.bfh.ti.jts.importer;
 
-import static ch.bfh.ti.jts.utils.Helpers.convert;
-
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 
@@ -42,30 +40,52 @@ public abstract class Importer<T> {
     abstract T extractData(final Document document);
 
     /**
-     * Get the attribute value of a node with the specified type.
+     * Get the attribute value of a node as double.
      *
      * @param node
      *            document node
      * @param attributeName
-     *            name of the attribute to convert
-     * @param outputClass
-     *            output type of the attribute
+     *            name of the attribute
      * @return attribute value
+     * @throws IllegalArgumentException
+     *             if the node has no such attribute or it is not a number
      */
-    protected <O> O getAttribute(final Node node, final String attributeName, final Class<O> outputClass) {
-        O output = null;
-        try {
-            if (node.hasAttributes()) {
-                final Node attribute = node.getAttributes().getNamedItem(attributeName);
-                if (attribute != null) {
-                    final String value = attribute.getNodeValue();
-                    output = convert(value, outputClass);
-                }
+    protected double getDouble(final Node node, final String attributeName) {
+        return Attributes.parseDouble(attributeName, getString(node, attributeName));
+    }
+
+    /**
+     * Get the attribute value of a node as integer.
+     *
+     * @param node
+     *            document node
+     * @param attributeName
+     *            name of the attribute
+     * @return attribute value
+     * @throws IllegalArgumentException
+     *             if the node has no such attribute or it is not an integer
+     */
+    protected int getInt(final Node node, final String attributeName) {
+        return Attributes.parseInt(attributeName, getString(node, attributeName));
+    }
+
+    /**
+     * Get the attribute value of a node.
+     *
+     * @param node
+     *            document node
+     * @param attributeName
+     *            name of the attribute
+     * @return attribute value, {@code null} if the node has no such attribute
+     */
+    protected String getString(final Node node, final String attributeName) {
+        if (node.hasAttributes()) {
+            final Node attribute = node.getAttributes().getNamedItem(attributeName);
+            if (attribute != null) {
+                return attribute.getNodeValue();
             }
-        } catch (final Exception ex) {
-            throw new RuntimeException("conversion failed", ex);
         }
-        return output;
+        return null;
     }
 
     /**
@@ -0,0 +1,487 @@
+package ch.bfh.ti.jts.importer;
+
+import java.awt.Shape;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import ch.bfh.ti.jts.data.Edge;
+import ch.bfh.ti.jts.data.Junction;
+import ch.bfh.ti.jts.data.Lane;
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.gui.PolyShape;
+import ch.bfh.ti.jts.utils.Config;
+
+/**
+ * Builds a net from the elements of a SUMO road network file in file order.
+ * Edges come before the junctions they reference, so all elements are kept as
+ * plain records and resolved by their ids once the whole file was read. The
+ * records can be written to and read from a binary {@link NetCache}.
+ *
+ * @author Enteee
+ * @author winki
+ */
+class NetBuilder {
+
+    /**
+     * A connection between two lanes.
+     */
+    private static class ConnectionRecord {
+
+        private final String from;
+        private final int    fromLane;
+        private final String to;
+        private final int    toLane;
+
+        private ConnectionRecord(final String from, final int fromLane, final String to, final int toLane) {
+            this.from = from;
+            this.fromLane = fromLane;
+            this.to = to;
+            this.toLane = toLane;
+        }
+    }
+
+    /**
+     * An edge with its lanes.
+     */
+    static class EdgeRecord {
+
+        private final String           id;
+        private final String           from;
+        private final String           to;
+        private final int              priority;
+        private final List<LaneRecord> lanes = new ArrayList<>();
+
+        private EdgeRecord(final String id, final String from, final String to, final int priority) {
+            this.id = id;
+            this.from = from;
+            this.to = to;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * A junction.
+     */
+    private static class JunctionRecord {
+
+        private final String      id;
+        private final double      x;
+        private final double      y;
+        private final ShapeRecord shape;
+
+        private JunctionRecord(final String id, final double x, final double y, final ShapeRecord shape) {
+            this.id = id;
+            this.x = x;
+            this.y = y;
+            this.shape = shape;
+        }
+    }
+
+    /**
+     * A lane of an edge.
+     */
+    private static class LaneRecord {
+
+        private final String      id;
+        private final int         index;
+        private final double      speed;
+        private final double      length;
+        private final ShapeRecord shape;
+
+        private LaneRecord(final String id, final int index, final double speed, final double length, final ShapeRecord shape) {
+            this.id = id;
+            this.index = index;
+            this.speed = speed;
+            this.length = length;
+            this.shape = shape;
+        }
+    }
+
+    /**
+     * A shape, either as in the file or as coordinates. Shape strings are
+     * parsed when the net is built, so that they can be parsed in parallel.
+     */
+    private static class ShapeRecord {
+
+        private final String string;
+        private double[]     coordinates;
+
+        private ShapeRecord(final double[] coordinates) {
+            if (coordinates == null) {
+                throw new ArgumentNullException("coordinates");
+            }
+            string = null;
+            this.coordinates = coordinates;
+        }
+
+        private ShapeRecord(final String string) {
+            if (string == null) {
+                throw new ArgumentNullException("shapeString");
+            }
+            this.string = string;
+        }
+
+        /**
+         * @return the coordinates as in the file
+         */
+        private double[] getCoordinates() {
+            if (coordinates == null) {
+                coordinates = PolyShape.parseCoordinates(string);
+            }
+            return coordinates;
+        }
+    }
+
+    /**
+     * Copy of file coordinates with inverted y coordinates (different origin
+     * in C++ and Java).
+     */
+    private static double[] invertY(final double[] coordinates) {
+        final double[] inverted = coordinates.clone();
+        for (int i = 1; i < inverted.length; i += 2) {
+            inverted[i] = -inverted[i];
+        }
+        return inverted;
+    }
+
+    /**
+     * Stream over the indices of an array, parallel if enabled.
+     */
+    private static IntStream range(final int length) {
+        final IntStream range = IntStream.range(0, length);
+        return BUILD_PARALLEL ? range.parallel() : range;
+    }
+
+    private static double[] readCoordinates(final ByteBuffer input) {
+        final double[] coordinates = new double[input.getInt()];
+        input.asDoubleBuffer().get(coordinates);
+        input.position(input.position() + coordinates.length * Double.BYTES);
+        return coordinates;
+    }
+
+    private static String readString(final ByteBuffer input) {
+        final int length = input.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        input.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeCoordinates(final DataOutput output, final double[] coordinates) throws IOException {
+        output.writeInt(coordinates.length);
+        for (final double coordinate : coordinates) {
+            output.writeDouble(coordinate);
+        }
+    }
+
+    private static void writeString(final DataOutput output, final String string) throws IOException {
+        if (string == null) {
+            output.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static final Logger          log            = LogManager.getLogger(NetBuilder.class);
+
+    /**
+     * Build the geometry of the elements in parallel. Pays off with more than
+     * one processor only.
+     */
+    private static final boolean         BUILD_PARALLEL = Config.getInstance().getBool("net.importer.parallel", Runtime.getRuntime().availableProcessors() > 1);
+
+    private final Net                    net            = new Net();
+    private final List<JunctionRecord>   junctions      = new ArrayList<>();
+    /**
+     * Lanes by edge id, indexed by the lane index.
+     */
+    private final Map<String, Lane[]>    edgeLanes      = new HashMap<>();
+    private final List<EdgeRecord>       edges          = new ArrayList<>();
+    private final List<ConnectionRecord> connections    = new ArrayList<>();
+
+    /**
+     * Adds a connection between two lanes.
+     *
+     * @param from
+     *            id of the edge the connection comes from
+     * @param fromLane
+     *            index of the lane the connection comes from
+     * @param to
+     *            id of the edge the connection goes to
+     * @param toLane
+     *            index of the lane the connection goes to
+     */
+    public void addConnection(final String from, final int fromLane, final String to, final int toLane) {
+        connections.add(new ConnectionRecord(from, fromLane, to, toLane));
+    }
+
+    /**
+     * Adds an edge. Its lanes are added with
+     * {@link NetBuilder#addLane(EdgeRecord, String, int, double, double, String)}
+     * .
+     *
+     * @param id
+     *            id of the edge
+     * @param from
+     *            id of the start junction
+     * @param to
+     *            id of the end junction
+     * @param priority
+     *            priority of the edge
+     * @return the edge, to add lanes to
+     */
+    public EdgeRecord addEdge(final String id, final String from, final String to, final int priority) {
+        final EdgeRecord edge = new EdgeRecord(id, from, to, priority);
+        edges.add(edge);
+        return edge;
+    }
+
+    /**
+     * Adds a junction.
+     *
+     * @param id
+     *            id of the junction
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate as in the file
+     * @param shape
+     *            coordinates of the shape as in the file
+     */
+    public void addJunction(final String id, final double x, final double y, final double[] shape) {
+        junctions.add(new JunctionRecord(id, x, y, new ShapeRecord(shape)));
+    }
+
+    /**
+     * Adds a junction.
+     *
+     * @param id
+     *            id of the junction
+     * @param x
+     *            x coordinate
+     * @param y
+     *            y coordinate as in the file
+     * @param shape
+     *            shape as in the file
+     */
+    public void addJunction(final String id, final double x, final double y, final String shape) {
+        junctions.add(new JunctionRecord(id, x, y, new ShapeRecord(shape)));
+    }
+
+    /**
+     * Adds a lane to an edge.
+     *
+     * @param edge
+     *            the edge
+     * @param id
+     *            id of the lane
+     * @param index
+     *            index of the lane on the edge
+     * @param speed
+     *            speed limit [m/s]
+     * @param length
+     *            length [m]
+     * @param shape
+     *            coordinates of the shape as in the file
+     */
+    public void addLane(final EdgeRecord edge, final String id, final int index, final double speed, final double length, final double[] shape) {
+        if (edge == null) {
+            throw new ArgumentNullException("edge");
+        }
+        edge.lanes.add(new LaneRecord(id, index, speed, length, new ShapeRecord(shape)));
+    }
+
+    /**
+     * Adds a lane to an edge.
+     *
+     * @param edge
+     *            the edge
+     * @param id
+     *            id of the lane
+     * @param index
+     *            index of the lane on the edge
+     * @param speed
+     *            speed limit [m/s]
+     * @param length
+     *            length [m]
+     * @param shape
+     *            shape as in the file
+     */
+    public void addLane(final EdgeRecord edge, final String id, final int index, final double speed, final double length, final String shape) {
+        if (edge == null) {
+            throw new ArgumentNullException("edge");
+        }
+        edge.lanes.add(new LaneRecord(id, index, speed, length, new ShapeRecord(shape)));
+    }
+
+    /**
+     * Builds the net. The builder can't be used afterwards.
+     *
+     * @return the net
+     */
+    public Net build() {
+        final List<LaneRecord> laneRecords = edges.stream().flatMap(record -> record.lanes.stream()).collect(Collectors.toList());
+        // the geometry only depends on its own record: parse and build it in
+        // parallel
+        final Shape[] junctionShapes = new Shape[junctions.size()];
+        range(junctionShapes.length).forEach(i -> {
+            junctionShapes[i] = new PolyShape(invertY(junctions.get(i).shape.getCoordinates()), false).getShape();
+        });
+        final PolyShape[] laneShapes = new PolyShape[laneRecords.size()];
+        range(laneShapes.length).forEach(i -> {
+            laneShapes[i] = new PolyShape(invertY(laneRecords.get(i).shape.getCoordinates()), false);
+        });
+        // elements get their ids on construction and link each other: create
+        // them in file order
+        final Map<String, Junction> junctionsById = new HashMap<>();
+        for (int i = 0; i < junctionShapes.length; i++) {
+            final JunctionRecord record = junctions.get(i);
+            // invert y coordinates (different origin in C++ and Java)!
+            final Junction junction = new Junction(record.id, record.x, -record.y, junctionShapes[i]);
+            junctionsById.put(record.id, junction);
+            net.addElement(junction);
+        }
+        junctions.clear();
+        // now we have the junctions. build the edges
+        int laneShapeIndex = 0;
+        for (final EdgeRecord record : edges) {
+            final Junction start = junctionsById.get(record.from);
+            final Junction end = junctionsById.get(record.to);
+            final Edge edge = new Edge(record.id, start, end, record.priority);
+            net.addElement(edge);
+            final int laneCount = record.lanes.stream().mapToInt(laneRecord -> laneRecord.index + 1).max().orElse(0);
+            final Lane[] lanes = new Lane[laneCount];
+            for (final LaneRecord laneRecord : record.lanes) {
+                final PolyShape polyShape = laneShapes[laneShapeIndex++];
+                final Lane lane = new Lane(laneRecord.id, edge, laneRecord.index, laneRecord.speed, laneRecord.length, polyShape);
+                net.addElement(lane);
+                lanes[laneRecord.index] = lane;
+            }
+            edgeLanes.put(record.id, lanes);
+        }
+        edges.clear();
+        // now we have the lanes. build the connections
+        for (final ConnectionRecord record : connections) {
+            final Lane laneFrom = getLane(record.from, record.fromLane);
+            final Lane laneTo = getLane(record.to, record.toLane);
+            if (laneFrom == null || laneTo == null) {
+                log.warn(String.format("Connection from %s_%d to %s_%d references an unknown lane", record.from, record.fromLane, record.to, record.toLane));
+                continue;
+            }
+            laneFrom.addLane(laneTo);
+        }
+        connections.clear();
+        edgeLanes.clear();
+        net.buildTopology();
+        return net;
+    }
+
+    private Lane getLane(final String edgeId, final int index) {
+        final Lane[] lanes = edgeLanes.get(edgeId);
+        if (lanes == null || index < 0 || index >= lanes.length) {
+            return null;
+        }
+        return lanes[index];
+    }
+
+    /**
+     * Adds the records written by {@link NetBuilder#writeRecords(DataOutput)}.
+     *
+     * @param input
+     *            buffer positioned at the records
+     */
+    public void readRecords(final ByteBuffer input) {
+        if (input == null) {
+            throw new ArgumentNullException("input");
+        }
+        final int junctionCount = input.getInt();
+        for (int i = 0; i < junctionCount; i++) {
+            final String id = readString(input);
+            final double x = input.getDouble();
+            final double y = input.getDouble();
+            addJunction(id, x, y, readCoordinates(input));
+        }
+        final int edgeCount = input.getInt();
+        for (int i = 0; i < edgeCount; i++) {
+            final String id = readString(input);
+            final String from = readString(input);
+            final String to = readString(input);
+            final EdgeRecord edge = addEdge(id, from, to, input.getInt());
+            final int laneCount = input.getInt();
+            for (int j = 0; j < laneCount; j++) {
+                final String laneId = readString(input);
+                final int index = input.getInt();
+                final double speed = input.getDouble();
+                final double length = input.getDouble();
+                addLane(edge, laneId, index, speed, length, readCoordinates(input));
+            }
+        }
+        final int connectionCount = input.getInt();
+        for (int i = 0; i < connectionCount; i++) {
+            final String from = readString(input);
+            final int fromLane = input.getInt();
+            final String to = readString(input);
+            addConnection(from, fromLane, to, input.getInt());
+        }
+    }
+
+    /**
+     * Writes the records added so far. Must be called before
+     * {@link NetBuilder#build()}.
+     *
+     * @param output
+     *            the output
+     * @throws IOException
+     *             if the output fails
+     */
+    public void writeRecords(final DataOutput output) throws IOException {
+        if (output == null) {
+            throw new ArgumentNullException("output");
+        }
+        output.writeInt(junctions.size());
+        for (final JunctionRecord junction : junctions) {
+            writeString(output, junction.id);
+            output.writeDouble(junction.x);
+            output.writeDouble(junction.y);
+            writeCoordinates(output, junction.shape.getCoordinates());
+        }
+        output.writeInt(edges.size());
+        for (final EdgeRecord edge : edges) {
+            writeString(output, edge.id);
+            writeString(output, edge.from);
+            writeString(output, edge.to);
+            output.writeInt(edge.priority);
+            output.writeInt(edge.lanes.size());
+            for (final LaneRecord lane : edge.lanes) {
+                writeString(output, lane.id);
+                output.writeInt(lane.index);
+                output.writeDouble(lane.speed);
+                output.writeDouble(lane.length);
+                writeCoordinates(output, lane.shape.getCoordinates());
+            }
+        }
+        output.writeInt(connections.size());
+        for (final ConnectionRecord connection : connections) {
+            writeString(output, connection.from);
+            output.writeInt(connection.fromLane);
+            writeString(output, connection.to);
+            output.writeInt(connection.toLane);
+        }
+    }
+}
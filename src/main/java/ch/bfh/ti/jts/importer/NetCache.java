@@ -0,0 +1,202 @@
+package ch.bfh.ti.jts.importer;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.utils.Config;
+
+/**
+ * Imports SUMO road network files through a cache of compiled binary files.
+ * The first import of a file parses the XML and writes its elements to a
+ * binary file named by the SHA-256 hash of the source. Later imports of the
+ * same source map that file into memory instead of parsing the XML. The
+ * mapped files are shared through the page cache of the operating system by
+ * all processes loading the same net.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class NetCache {
+
+    private static String toHex(final byte[] bytes, final int length) {
+        final StringBuilder hex = new StringBuilder();
+        for (int i = 0; hex.length() < length && i < bytes.length; i++) {
+            hex.append(String.format("%02x", bytes[i]));
+        }
+        return hex.toString();
+    }
+
+    private static final Logger log           = LogManager.getLogger(NetCache.class);
+
+    /**
+     * Directory of the compiled files.
+     */
+    private static final String CACHE_PATH    = Config.getInstance().getValue("net.cache.path", "cache");
+    /**
+     * Marks compiled net files: "JTSN".
+     */
+    private static final int    MAGIC         = 0x4A54534E;
+    /**
+     * Version of the format. Has to be incremented whenever the format or the
+     * meaning of the records change, older files are compiled again.
+     */
+    private static final int    VERSION       = 1;
+    private static final int    HASH_LENGTH   = 32;
+    /**
+     * Number of characters of the hash in the file name.
+     */
+    private static final int    NAME_HASH_HEX = 16;
+
+    private final File          directory;
+
+    public NetCache() {
+        this(new File(CACHE_PATH));
+    }
+
+    /**
+     * @param directory
+     *            directory of the compiled files, created if missing
+     */
+    public NetCache(final File directory) {
+        if (directory == null) {
+            throw new ArgumentNullException("directory");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Parses a source file and writes the compiled file. A failure to write is
+     * logged, the parsed elements are returned anyway.
+     */
+    private NetBuilder compile(final String path, final byte[] hash, final File file) {
+        final NetBuilder builder = new NetImporter().importRecords(path);
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("can't create " + directory);
+            }
+            // write to a temporary file first, other processes may read the
+            // compiled file at the same time
+            final File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.write(hash);
+                builder.writeRecords(output);
+            } catch (final IOException ex) {
+                Files.deleteIfExists(temporary.toPath());
+                throw ex;
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info(String.format("Compiled %s to %s", path, file));
+        } catch (final IOException ex) {
+            log.warn(String.format("Can't write compiled net %s", file), ex);
+        }
+        return builder;
+    }
+
+    /**
+     * Gets the compiled file of a source.
+     *
+     * @param path
+     *            path to the source file
+     * @param hash
+     *            hash of the source file
+     * @return the compiled file, may not exist
+     */
+    private File getFile(final String path, final byte[] hash) {
+        return new File(directory, String.format("%s.%s.bin", new File(path).getName(), toHex(hash, NAME_HASH_HEX)));
+    }
+
+    private byte[] hash(final String path) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new RuntimeException(ex);
+        }
+        try (InputStream input = Files.newInputStream(new File(path).toPath())) {
+            final byte[] buffer = new byte[1 << 16];
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Imports a net from a file. Uses the compiled file if it is up to date,
+     * compiles the source otherwise.
+     *
+     * @param path
+     *            path to the file to import
+     * @return the net
+     */
+    public Net importData(final String path) {
+        if (path == null) {
+            throw new ArgumentNullException("path");
+        }
+        final byte[] hash;
+        try {
+            hash = hash(path);
+        } catch (final IOException ex) {
+            throw new RuntimeException("document parsing failed", ex);
+        }
+        final File file = getFile(path, hash);
+        NetBuilder builder = null;
+        if (file.isFile()) {
+            try {
+                builder = read(file, hash);
+            } catch (final IOException | RuntimeException ex) {
+                log.warn(String.format("Ignoring broken compiled net %s", file), ex);
+            }
+        }
+        if (builder == null) {
+            builder = compile(path, hash, file);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Reads a compiled file through a memory mapping.
+     *
+     * @return the elements, {@code null} if the file is outdated
+     */
+    private NetBuilder read(final File file, final byte[] hash) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final MappedByteBuffer input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (input.getInt() != MAGIC || input.getInt() != VERSION) {
+                return null;
+            }
+            final byte[] fileHash = new byte[HASH_LENGTH];
+            input.get(fileHash);
+            if (!Arrays.equals(fileHash, hash)) {
+                return null;
+            }
+            final NetBuilder builder = new NetBuilder();
+            builder.readRecords(input);
+            if (input.hasRemaining()) {
+                throw new IOException("unexpected data at the end");
+            }
+            log.info(String.format("Loaded compiled net %s", file));
+            return builder;
+        }
+    }
+}
@@ -1,133 +1,157 @@
 package ch.bfh.ti.jts.importer;
 
-import java.awt.Shape;
-import java.util.Collection;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.Map;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-
-import ch.bfh.ti.jts.data.Edge;
-import ch.bfh.ti.jts.data.Junction;
-import ch.bfh.ti.jts.data.Lane;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import ch.bfh.ti.jts.data.Net;
 import ch.bfh.ti.jts.exceptions.ArgumentNullException;
-import ch.bfh.ti.jts.gui.PolyShape;
+import ch.bfh.ti.jts.importer.NetBuilder.EdgeRecord;
 
 /**
- * Imports SUMO road network files.
+ * Imports SUMO road network files. The file is streamed, only the attributes
+ * of the imported elements are kept in memory.
  *
  * @see <a href="http://sumo.dlr.de/wiki/Networks/SUMO_Road_Networks">SUMO Road
  *      Networks</a>
  * @author Enteee
  * @author winki
  */
-public class NetImporter extends Importer<Net> {
-
-    private Net                         net;
-    private final Collection<Node>      edgesNodes      = new LinkedList<Node>();
-    private final Collection<Node>      connectionNodes = new LinkedList<Node>();
-    private final Map<String, Junction> junctions       = new LinkedHashMap<String, Junction>();
-    private final Map<String, Edge>     edges           = new LinkedHashMap<String, Edge>();
-    private final Map<String, Lane>     lanes           = new LinkedHashMap<String, Lane>();
-
-    private void extractConnection(final Node node) {
-        if (node == null) {
-            throw new ArgumentNullException("node");
-        }
-        final String from = getAttribute(node, "from", String.class);
-        final String to = getAttribute(node, "to", String.class);
-        final String fromLane = getAttribute(node, "fromLane", String.class);
-        final String toLane = getAttribute(node, "toLane", String.class);
-        final Lane laneFrom = lanes.get(String.format("%s_%s", from, fromLane));
-        final Lane laneTo = lanes.get(String.format("%s_%s", to, toLane));
-        laneFrom.getLanes().add(laneTo);
+public class NetImporter {
+
+    /**
+     * Depth of the elements below the root element.
+     */
+    private static final int      ELEMENT_DEPTH = 2;
+
+    private final XMLInputFactory inputFactory;
+    private NetBuilder            builder;
+
+    public NetImporter() {
+        inputFactory = XMLInputFactory.newInstance();
+        // net files have no DTD, don't resolve external entities
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
     }
 
-    @Override
-    protected Net extractData(final Document document) {
-        net = new Net();
-        final Node root = document.getDocumentElement();
-        final NodeList nodes = root.getChildNodes();
-        for (int i = 1; i < nodes.getLength(); i++) {
-            final Node node = nodes.item(i);
-            if (node.getNodeName().equals("location")) {
-                extractLocation(node);
-            } else if (node.getNodeName().equals("edge")) {
-                // add to dictionary, extract later
-                edgesNodes.add(node);
-            } else if (node.getNodeName().equals("junction")) {
-                extractJunction(node);
-            } else if (node.getNodeName().equals("connection")) {
-                // add to dictionary, extract later
-                connectionNodes.add(node);
-            }
-        }
-        // now we have the junctions. extract the edges
-        for (final Node node : edgesNodes) {
-            extractEdge(node);
-        }
-        // now we have the edges. extract the connections
-        for (final Node node : connectionNodes) {
-            extractConnection(node);
-        }
-        return net;
+    private void extractConnection(final XMLStreamReader reader) {
+        final String from = getString(reader, "from");
+        final String to = getString(reader, "to");
+        final int fromLane = getInt(reader, "fromLane");
+        final int toLane = getInt(reader, "toLane");
+        builder.addConnection(from, fromLane, to, toLane);
     }
 
-    private void extractEdge(final Node node) {
-        if (node == null) {
-            throw new ArgumentNullException("node");
-        }
-        final String id = getAttribute(node, "id", String.class);
-        final String from = getAttribute(node, "from", String.class);
-        final String to = getAttribute(node, "to", String.class);
-        final int priority = getAttribute(node, "priority", Integer.class);
-        final Junction start = junctions.get(from);
-        final Junction end = junctions.get(to);
-        final Edge edge = new Edge(id, start, end, priority);
-        edges.put(id, edge);
-        net.addElement(edge);
-        final NodeList nodes = node.getChildNodes();
-        for (int i = 1; i < nodes.getLength(); i++) {
-            final Node child = nodes.item(i);
-            if (child.getNodeName().equals("lane")) {
-                extractLane(child, edge);
+    private NetBuilder extractData(final XMLStreamReader reader) throws XMLStreamException {
+        builder = new NetBuilder();
+        int depth = 0;
+        EdgeRecord edge = null;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                final String name = reader.getLocalName();
+                if (depth == ELEMENT_DEPTH) {
+                    if (name.equals("edge")) {
+                        edge = extractEdge(reader);
+                    } else if (name.equals("junction")) {
+                        extractJunction(reader);
+                    } else if (name.equals("connection")) {
+                        extractConnection(reader);
+                    }
+                } else if (depth == ELEMENT_DEPTH + 1 && edge != null && name.equals("lane")) {
+                    extractLane(reader, edge);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == ELEMENT_DEPTH) {
+                    edge = null;
+                }
+                depth--;
             }
         }
+        return builder;
     }
 
-    private void extractJunction(final Node node) {
-        if (node == null) {
-            throw new ArgumentNullException("node");
-        }
-        final String id = getAttribute(node, "id", String.class);
-        final double x = getAttribute(node, "x", Double.class);
-        // invert y coordinates (different origin in C++ and Java)!
-        final double y = -getAttribute(node, "y", Double.class);
-        final PolyShape polyShape = new PolyShape(getAttribute(node, "shape", String.class));
-        final Shape shape = polyShape.getShape();
-        final Junction junction = new Junction(id, x, y, shape);
-        junctions.put(id, junction);
-        net.addElement(junction);
+    private EdgeRecord extractEdge(final XMLStreamReader reader) {
+        final String id = getString(reader, "id");
+        final String from = getString(reader, "from");
+        final String to = getString(reader, "to");
+        final int priority = getInt(reader, "priority");
+        return builder.addEdge(id, from, to, priority);
     }
 
-    private void extractLane(final Node node, final Edge edge) {
-        if (node == null) {
-            throw new ArgumentNullException("node");
-        }
-        final String id = getAttribute(node, "id", String.class);
-        final int index = getAttribute(node, "index", Integer.class);
-        final double speed = getAttribute(node, "speed", Double.class);
-        final double length = getAttribute(node, "length", Double.class);
-        final PolyShape polyShape = new PolyShape(getAttribute(node, "shape", String.class));
-        final Lane lane = new Lane(id, edge, index, speed, length, polyShape);
-        net.addElement(lane);
-        lanes.put(id, lane);
+    private void extractJunction(final XMLStreamReader reader) {
+        final String id = getString(reader, "id");
+        final double x = getDouble(reader, "x");
+        final double y = getDouble(reader, "y");
+        builder.addJunction(id, x, y, getString(reader, "shape"));
     }
 
-    private void extractLocation(final Node node) {
+    private void extractLane(final XMLStreamReader reader, final EdgeRecord edge) {
+        final String id = getString(reader, "id");
+        final int index = getInt(reader, "index");
+        final double speed = getDouble(reader, "speed");
+        final double length = getDouble(reader, "length");
+        builder.addLane(edge, id, index, speed, length, getString(reader, "shape"));
+    }
+
+    private double getDouble(final XMLStreamReader reader, final String attributeName) {
+        return Attributes.parseDouble(attributeName, getString(reader, attributeName));
+    }
+
+    private int getInt(final XMLStreamReader reader, final String attributeName) {
+        return Attributes.parseInt(attributeName, getString(reader, attributeName));
+    }
+
+    /**
+     * Get the attribute value of the current element.
+     *
+     * @param reader
+     *            reader positioned at the start of an element
+     * @param attributeName
+     *            name of the attribute
+     * @return attribute value, {@code null} if the element has no such
+     *         attribute
+     */
+    private String getString(final XMLStreamReader reader, final String attributeName) {
+        return reader.getAttributeValue(null, attributeName);
+    }
+
+    /**
+     * Imports a net from a file.
+     *
+     * @param path
+     *            path to the file to import
+     * @return the net
+     */
+    public Net importData(final String path) {
+        return importRecords(path).build();
+    }
+
+    /**
+     * Reads the elements of a file without building the net.
+     *
+     * @param path
+     *            path to the file to import
+     * @return builder holding the elements
+     */
+    NetBuilder importRecords(final String path) {
+        if (path == null) {
+            throw new ArgumentNullException("path");
+        }
+        try (InputStream input = new BufferedInputStream(new FileInputStream(path))) {
+            final XMLStreamReader reader = inputFactory.createXMLStreamReader(input);
+            try {
+                return extractData(reader);
+            } finally {
+                reader.close();
+            }
+        } catch (final Exception ex) {
+            throw new RuntimeException("document parsing failed", ex);
+        }
     }
 }
@@ -0,0 +1,136 @@
+package ch.bfh.ti.jts.importer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import ch.bfh.ti.jts.data.Edge;
+import ch.bfh.ti.jts.data.Element;
+import ch.bfh.ti.jts.data.Flow;
+import ch.bfh.ti.jts.data.Junction;
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.data.Route;
+import ch.bfh.ti.jts.data.Vehicle;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Creates vehicles, routes and flows from the attributes of a SUMO routes
+ * file.
+ *
+ * @author Enteee
+ * @author winki
+ */
+class RoutesBuilder {
+
+    private final Net                  net;
+    private final Map<String, Vehicle> vehicles = new HashMap<>();
+
+    public RoutesBuilder(final Net net) {
+        if (net == null) {
+            throw new ArgumentNullException("net");
+        }
+        this.net = net;
+    }
+
+    /**
+     * Adds a vehicle type.
+     *
+     * @param id
+     *            id of the type
+     * @param accel
+     *            acceleration [m/s^2]
+     * @param decel
+     *            deceleration [m/s^2]
+     * @param length
+     *            length [m]
+     * @param maxSpeed
+     *            max speed [m/s]
+     * @param agent
+     *            agent type name, may be {@code null}
+     */
+    public void addVehicleType(final String id, final double accel, final double decel, final double length, final double maxSpeed, final String agent) {
+        final Vehicle vehicle = new Vehicle(-decel, accel, 0, maxSpeed, length, agent);
+        vehicles.put(id, vehicle);
+    }
+
+    /**
+     * Creates a flow.
+     *
+     * @param type
+     *            vehicle type id
+     * @param departureSpeed
+     *            departure speed [m/s]
+     * @param arrivalSpeed
+     *            arrival speed [m/s]
+     * @param frequency
+     *            spawns per second
+     * @param routeJunctions
+     *            space separated junction ids of the route
+     * @return the flow
+     */
+    public Flow createFlow(final String type, final double departureSpeed, final double arrivalSpeed, final double frequency, final String routeJunctions) {
+        final String[] junctions = splitRoute(routeJunctions);
+        final Junction routeStart = getElement(junctions[0], Junction.class);
+        final Junction routeEnd = getElement(junctions[junctions.length - 1], Junction.class);
+        return new Flow(vehicles.get(type), routeStart, routeEnd, departureSpeed, arrivalSpeed, frequency);
+    }
+
+    /**
+     * Creates a route of a single vehicle.
+     *
+     * @param type
+     *            vehicle type id
+     * @param departureTime
+     *            departure time [s]
+     * @param departurePos
+     *            departure position [m]
+     * @param departureSpeed
+     *            departure speed [m/s]
+     * @param arrivalPos
+     *            arrival position [m]
+     * @param arrivalSpeed
+     *            arrival speed [m/s]
+     * @param routeEdges
+     *            space separated edge ids of the route
+     * @return the route
+     */
+    public Route createRoute(final String type, final double departureTime, final double departurePos, final double departureSpeed, final double arrivalPos,
+            final double arrivalSpeed, final String routeEdges) {
+        final String[] edges = splitRoute(routeEdges);
+        final Edge routeStart = getElement(edges[0], Edge.class);
+        final Edge routeEnd = getElement(edges[edges.length - 1], Edge.class);
+
+        // take junctions for spawning
+        final Junction jStart = routeStart.getStart();
+        final Junction jEnd = routeEnd.getEnd();
+
+        return new Route(vehicles.get(type), jStart, jEnd, departureTime, departurePos, departureSpeed, arrivalPos, arrivalSpeed);
+    }
+
+    /**
+     * Resolves an element of the net by its name in constant time.
+     *
+     * @param name
+     *            name of the element
+     * @param type
+     *            type of the element
+     * @return the element
+     */
+    private <T extends Element> T getElement(final String name, final Class<T> type) {
+        final T element = net.getElementByName(name, type);
+        if (element == null) {
+            throw new IllegalArgumentException(String.format("unknown %s in route: %s", type.getSimpleName().toLowerCase(), name));
+        }
+        return element;
+    }
+
+    private String[] splitRoute(final String route) {
+        if (route == null) {
+            throw new IllegalArgumentException("missing route");
+        }
+        final String[] parts = route.split(" ");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("illegal format of attribute edges in node route");
+        }
+        return parts;
+    }
+}
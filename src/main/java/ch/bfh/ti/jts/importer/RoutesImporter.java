@@ -1,21 +1,14 @@
 package ch.bfh.ti.jts.importer;
 
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.LinkedList;
-import java.util.Map;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
-import ch.bfh.ti.jts.data.Edge;
-import ch.bfh.ti.jts.data.Flow;
-import ch.bfh.ti.jts.data.Junction;
 import ch.bfh.ti.jts.data.Net;
-import ch.bfh.ti.jts.data.Route;
 import ch.bfh.ti.jts.data.SpawnInfo;
-import ch.bfh.ti.jts.data.Vehicle;
 import ch.bfh.ti.jts.exceptions.ArgumentNullException;
 
 /**
@@ -29,13 +22,14 @@ import ch.bfh.ti.jts.exceptions.ArgumentNullException;
  */
 public class RoutesImporter extends Importer<Collection<SpawnInfo>> {
 
-    private final Map<String, Vehicle> vehicles = new LinkedHashMap<String, Vehicle>();
-    private Net                        net;
-    private Collection<SpawnInfo>      routes;
+    private Net                   net;
+    private RoutesBuilder         builder;
+    private Collection<SpawnInfo> routes;
 
     @Override
     protected Collection<SpawnInfo> extractData(final Document document) {
         routes = new LinkedList<SpawnInfo>();
+        builder = new RoutesBuilder(net);
         final Node root = document.getDocumentElement();
         final NodeList nodes = root.getChildNodes();
         for (int i = 1; i < nodes.getLength(); i++) {
@@ -56,21 +50,12 @@ public class RoutesImporter extends Importer<Collection<SpawnInfo>> {
         if (node == null) {
             throw new ArgumentNullException("node");
         }
-        final String type = getAttribute(node, "type", String.class);
-        final double departureSpeed = getAttribute(node, "departSpeed", Double.class);
-        final double arrivalSpeed = getAttribute(node, "arrivalSpeed", Double.class);
-        final double frequency = getAttribute(node, "frequency", Double.class);
-        final Vehicle vehicle = vehicles.get(type);
-        final String routeEdges = extractRouteJunctions(node);
-        final String[] edges = routeEdges.split(" ");
-        if (edges.length < 2) {
-            throw new IllegalArgumentException("illegal format of attribute edges in node route");
-        }
-        final String edgeIdStart = edges[0];
-        final String edgeIdEnd = edges[edges.length - 1];
-        final Junction routeStart = (Junction) net.getElementStream(Junction.class).filter(x -> x.getName().equals(edgeIdStart)).findFirst().orElse(null);
-        final Junction routeEnd = (Junction) net.getElementStream(Junction.class).filter(x -> x.getName().equals(edgeIdEnd)).findFirst().orElse(null);
-        final SpawnInfo route = new Flow(vehicle, routeStart, routeEnd, departureSpeed, arrivalSpeed, frequency);
+        final String type = getString(node, "type");
+        final double departureSpeed = getDouble(node, "departSpeed");
+        final double arrivalSpeed = getDouble(node, "arrivalSpeed");
+        final double frequency = getDouble(node, "frequency");
+        final String routeJunctions = extractRouteJunctions(node);
+        final SpawnInfo route = builder.createFlow(type, departureSpeed, arrivalSpeed, frequency, routeJunctions);
         routes.add(route);
     }
 
@@ -83,7 +68,7 @@ public class RoutesImporter extends Importer<Collection<SpawnInfo>> {
             final NodeList nodes = node.getChildNodes();
             final Node child = nodes.item(1);
             if (child != null && child.getNodeName().equals("route")) {
-                routeEdges = getAttribute(child, "edges", String.class);
+                routeEdges = getString(child, "edges");
             }
         }
         return routeEdges;
@@ -98,7 +83,7 @@ public class RoutesImporter extends Importer<Collection<SpawnInfo>> {
             final NodeList nodes = node.getChildNodes();
             final Node child = nodes.item(1);
             if (child != null && child.getNodeName().equals("route")) {
-                routeEdges = getAttribute(child, "junctions", String.class);
+                routeEdges = getString(child, "junctions");
             }
         }
         return routeEdges;
@@ -108,28 +93,14 @@ public class RoutesImporter extends Importer<Collection<SpawnInfo>> {
         if (node == null) {
             throw new ArgumentNullException("node");
         }
-        final String type = getAttribute(node, "type", String.class);
-        final double departureTime = getAttribute(node, "depart", Double.class);
-        final double departurePos = getAttribute(node, "departPos", Double.class);
-        final double departureSpeed = getAttribute(node, "departSpeed", Double.class);
-        final double arrivalPos = getAttribute(node, "arrivalPos", Double.class);
-        final double arrivalSpeed = getAttribute(node, "arrivalSpeed", Double.class);
-        final Vehicle vehicle = vehicles.get(type);
+        final String type = getString(node, "type");
+        final double departureTime = getDouble(node, "depart");
+        final double departurePos = getDouble(node, "departPos");
+        final double departureSpeed = getDouble(node, "departSpeed");
+        final double arrivalPos = getDouble(node, "arrivalPos");
+        final double arrivalSpeed = getDouble(node, "arrivalSpeed");
         final String routeEdges = extractRouteEdges(node);
-        final String[] edges = routeEdges.split(" ");
-        if (edges.length < 2) {
-            throw new IllegalArgumentException("illegal format of attribute edges in node route");
-        }
-        final String edgeIdStart = edges[0];
-        final String edgeIdEnd = edges[edges.length - 1];
-        final Edge routeStart = (Edge) net.getElementStream(Edge.class).filter(x -> x.getName().equals(edgeIdStart)).findFirst().orElse(null);
-        final Edge routeEnd = (Edge) net.getElementStream(Edge.class).filter(x -> x.getName().equals(edgeIdEnd)).findFirst().orElse(null);
-
-        // take junctions for spawning
-        final Junction jStart = routeStart.getStart();
-        final Junction jEnd = routeEnd.getEnd();
-
-        final SpawnInfo route = new Route(vehicle, jStart, jEnd, departureTime, departurePos, departureSpeed, arrivalPos, arrivalSpeed);
+        final SpawnInfo route = builder.createRoute(type, departureTime, departurePos, departureSpeed, arrivalPos, arrivalSpeed, routeEdges);
         routes.add(route);
     }
 
@@ -137,14 +108,13 @@ public class RoutesImporter extends Importer<Collection<SpawnInfo>> {
         if (node == null) {
             throw new ArgumentNullException("node");
         }
-        final String id = getAttribute(node, "id", String.class);
-        final double accel = getAttribute(node, "accel", Double.class);
-        final double decel = getAttribute(node, "decel", Double.class);
-        final double length = getAttribute(node, "length", Double.class);
-        final double maxSpeed = getAttribute(node, "maxSpeed", Double.class);
-        final String agent = getAttribute(node, "agent", String.class);
-        final Vehicle vehicle = new Vehicle(-decel, accel, 0, maxSpeed, length, agent);
-        vehicles.put(id, vehicle);
+        final String id = getString(node, "id");
+        final double accel = getDouble(node, "accel");
+        final double decel = getDouble(node, "decel");
+        final double length = getDouble(node, "length");
+        final double maxSpeed = getDouble(node, "maxSpeed");
+        final String agent = getString(node, "agent");
+        builder.addVehicleType(id, accel, decel, length, maxSpeed, agent);
     }
 
     public void setNet(final Net net) {
@@ -0,0 +1,227 @@
+package ch.bfh.ti.jts.importer;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.data.SpawnInfo;
+import ch.bfh.ti.jts.data.SpawnInfoSource;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Streams SUMO routes files while the simulation runs. Only the routes up to
+ * the requested departure time are read, so that large demand files are never
+ * held in memory as a whole. Vehicles are expected in the order of their
+ * departure, as SUMO writes them. Flows are supplied as soon as they are read.
+ *
+ * @see <a
+ *      href="http://sumo.dlr.de/wiki/Definition_of_Vehicles,_Vehicle_Types,_and_Routes">SUMO
+ *      Definition of Vehicles, Vehicle Types, and Routes</a>
+ * @author Enteee
+ * @author winki
+ */
+public class RoutesLoader implements SpawnInfoSource {
+
+    private static final Logger   log               = LogManager.getLogger(RoutesLoader.class);
+
+    /**
+     * Depth of the elements below the root element.
+     */
+    private static final int      ELEMENT_DEPTH     = 2;
+
+    private final String          path;
+    private final RoutesBuilder   builder;
+    private final InputStream     input;
+    private final XMLStreamReader reader;
+    /**
+     * Route which was read but departs after the last requested time.
+     */
+    private SpawnInfo             next;
+    /**
+     * Departure time [s] of the last supplied route.
+     */
+    private double                lastDepartureTime = Double.NEGATIVE_INFINITY;
+    private boolean               unsorted;
+    private boolean               closed;
+
+    /**
+     * Opens a routes file.
+     *
+     * @param net
+     *            the net the routes are on
+     * @param path
+     *            path to the file
+     */
+    public RoutesLoader(final Net net, final String path) {
+        if (path == null) {
+            throw new ArgumentNullException("path");
+        }
+        this.path = path;
+        builder = new RoutesBuilder(net);
+        final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+        // routes files have no DTD, don't resolve external entities
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        try {
+            input = new BufferedInputStream(new FileInputStream(path));
+            reader = inputFactory.createXMLStreamReader(input);
+        } catch (final Exception ex) {
+            throw new RuntimeException("document parsing failed", ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            reader.close();
+            input.close();
+        } catch (final XMLStreamException | IOException ex) {
+            log.warn(String.format("Can't close %s", path), ex);
+        }
+    }
+
+    private SpawnInfo extractFlow() throws XMLStreamException {
+        final String type = getString("type");
+        final double departureSpeed = getDouble("departSpeed");
+        final double arrivalSpeed = getDouble("arrivalSpeed");
+        final double frequency = getDouble("frequency");
+        final String routeJunctions = extractRoute("junctions");
+        return builder.createFlow(type, departureSpeed, arrivalSpeed, frequency, routeJunctions);
+    }
+
+    /**
+     * Reads the route child of the current element up to the end of the
+     * current element.
+     *
+     * @param attributeName
+     *            attribute of the route to get
+     * @return attribute value, {@code null} if there is no route
+     */
+    private String extractRoute(final String attributeName) throws XMLStreamException {
+        String route = null;
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == 2 && route == null && reader.getLocalName().equals("route")) {
+                    route = getString(attributeName);
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return route;
+    }
+
+    private SpawnInfo extractVecicle() throws XMLStreamException {
+        final String type = getString("type");
+        final double departureTime = getDouble("depart");
+        final double departurePos = getDouble("departPos");
+        final double departureSpeed = getDouble("departSpeed");
+        final double arrivalPos = getDouble("arrivalPos");
+        final double arrivalSpeed = getDouble("arrivalSpeed");
+        final String routeEdges = extractRoute("edges");
+        return builder.createRoute(type, departureTime, departurePos, departureSpeed, arrivalPos, arrivalSpeed, routeEdges);
+    }
+
+    private void extractVecicleType() {
+        final String id = getString("id");
+        final double accel = getDouble("accel");
+        final double decel = getDouble("decel");
+        final double length = getDouble("length");
+        final double maxSpeed = getDouble("maxSpeed");
+        final String agent = getString("agent");
+        builder.addVehicleType(id, accel, decel, length, maxSpeed, agent);
+    }
+
+    private double getDouble(final String attributeName) {
+        return Attributes.parseDouble(attributeName, getString(attributeName));
+    }
+
+    private String getString(final String attributeName) {
+        return reader.getAttributeValue(null, attributeName);
+    }
+
+    @Override
+    public synchronized Collection<SpawnInfo> poll(final double departureTime) {
+        if (closed && next == null) {
+            return Collections.emptyList();
+        }
+        final List<SpawnInfo> routes = new ArrayList<>();
+        try {
+            while (true) {
+                if (next == null) {
+                    next = read();
+                    if (next == null) {
+                        // end of file
+                        close();
+                        break;
+                    }
+                }
+                if (next.getDepartureTime() > departureTime) {
+                    break;
+                }
+                if (next.getDepartureTime() < lastDepartureTime && !unsorted) {
+                    unsorted = true;
+                    log.warn(String.format("%s is not sorted by departure, some vehicles depart late", path));
+                }
+                lastDepartureTime = Math.max(lastDepartureTime, next.getDepartureTime());
+                routes.add(next);
+                next = null;
+            }
+        } catch (final XMLStreamException ex) {
+            close();
+            throw new RuntimeException("document parsing failed", ex);
+        }
+        return routes;
+    }
+
+    /**
+     * Reads up to the next vehicle or flow.
+     *
+     * @return the route or flow, {@code null} at the end of the file
+     */
+    private SpawnInfo read() throws XMLStreamException {
+        if (closed) {
+            return null;
+        }
+        int depth = reader.getEventType() == XMLStreamConstants.START_DOCUMENT ? 0 : ELEMENT_DEPTH - 1;
+        while (reader.hasNext()) {
+            final int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (depth == ELEMENT_DEPTH) {
+                    final String name = reader.getLocalName();
+                    if (name.equals("vType")) {
+                        extractVecicleType();
+                    } else if (name.equals("vehicle")) {
+                        return extractVecicle();
+                    } else if (name.equals("flow")) {
+                        return extractFlow();
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,238 @@
+package ch.bfh.ti.jts.simulation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import ch.bfh.ti.jts.data.Checkpoint;
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+import ch.bfh.ti.jts.utils.Config;
+
+/**
+ * Writes checkpoints of a simulation to disk at a fixed simulation time
+ * interval. The checkpoints are taken from the saved simulation states and
+ * written by a background thread, so that the simulation never waits for the
+ * disk. If the previous checkpoint is still being written, the next one is
+ * taken as soon as it is done.
+ *
+ * @author Enteee
+ * @author winki
+ */
+public class Checkpointer {
+
+    /**
+     * Gets the most recent checkpoint file.
+     *
+     * @return the file, {@code null} if there is none
+     */
+    public static File getLatest() {
+        final File[] files = new File(CHECKPOINT_PATH).listFiles((parent, name) -> name.endsWith(FILE_EXTENSION));
+        if (files == null) {
+            return null;
+        }
+        return Arrays.stream(files).max(Comparator.comparingLong(File::lastModified)).orElse(null);
+    }
+
+    /**
+     * Reads a checkpoint.
+     *
+     * @param file
+     *            the checkpoint file
+     * @return the checkpoint
+     */
+    public static Checkpoint read(final File file) {
+        if (file == null) {
+            throw new ArgumentNullException("file");
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IllegalArgumentException(String.format("%s is not a checkpoint of this version", file));
+            }
+            final ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new InflaterInputStream(input)));
+            return (Checkpoint) in.readObject();
+        } catch (final IOException | ClassNotFoundException ex) {
+            throw new RuntimeException(String.format("Can't read checkpoint %s", file), ex);
+        }
+    }
+
+    private static final Logger   log                 = LogManager.getLogger(Checkpointer.class);
+
+    /**
+     * Write checkpoints at all?
+     */
+    public static final boolean   CHECKPOINT_ENABLED  = Config.getInstance().getBool("checkpoint.enabled", false);
+    /**
+     * Directory the checkpoints are written to.
+     */
+    private static final String   CHECKPOINT_PATH     = Config.getInstance().getValue("checkpoint.path", "checkpoints");
+    /**
+     * Simulation time [s] between two checkpoints.
+     */
+    private static final double   CHECKPOINT_INTERVAL = Config.getInstance().getDouble("checkpoint.interval", 300.0, 0.0, 1000000.0);
+    /**
+     * Number of checkpoints kept per net, older ones are deleted.
+     */
+    private static final int      CHECKPOINT_KEEP     = Config.getInstance().getInt("checkpoint.keep", 3, 1, 1000);
+    private static final String   FILE_EXTENSION      = ".checkpoint";
+    /**
+     * Marks checkpoint files: "JTSC".
+     */
+    private static final int      MAGIC               = 0x4A545343;
+    /**
+     * Version of the format. Has to be incremented whenever the format
+     * changes.
+     */
+    private static final int      VERSION             = 1;
+
+    private final String          netName;
+    private final File            directory;
+    private final ExecutorService executor;
+    /**
+     * Is a checkpoint being written?
+     */
+    private final AtomicBoolean   writing             = new AtomicBoolean();
+    /**
+     * Simulation time [s] of the next checkpoint. Set by the first offered
+     * state.
+     */
+    private double                nextCheckpointTime  = Double.NaN;
+
+    /**
+     * @param netName
+     *            name of the simulated net
+     */
+    public Checkpointer(final String netName) {
+        if (netName == null) {
+            throw new ArgumentNullException("netName");
+        }
+        this.netName = netName;
+        directory = new File(CHECKPOINT_PATH);
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Stops taking checkpoints and waits for the pending one.
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("Checkpoint not finished");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Removes all but the most recent checkpoints of the net.
+     */
+    private void deleteOldCheckpoints() {
+        final File[] files = directory.listFiles((parent, name) -> name.startsWith(netName + "-") && name.endsWith(FILE_EXTENSION));
+        if (files == null || files.length <= CHECKPOINT_KEEP) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = CHECKPOINT_KEEP; i < files.length; i++) {
+            if (!files[i].delete()) {
+                log.warn(String.format("Can't delete old checkpoint %s", files[i]));
+            }
+        }
+    }
+
+    /**
+     * @return next simulation time [s] on the cadence after a time
+     */
+    private double getNextCheckpointTime(final double time) {
+        return CHECKPOINT_INTERVAL > 0 ? (Math.floor(time / CHECKPOINT_INTERVAL) + 1) * CHECKPOINT_INTERVAL : time;
+    }
+
+    /**
+     * Offers a saved simulation state. A checkpoint is taken if one is due and
+     * the previous one was written. Must be called on the simulation thread.
+     *
+     * @param net
+     *            the simulated net
+     * @param state
+     *            copy of the simulated net, must not change anymore
+     */
+    public void offer(final Net net, final Net state) {
+        if (state == null) {
+            throw new ArgumentNullException("state");
+        }
+        final double time = state.getSimulationTime();
+        if (Double.isNaN(nextCheckpointTime)) {
+            // nothing to lose yet
+            nextCheckpointTime = getNextCheckpointTime(time);
+            return;
+        }
+        if (time < nextCheckpointTime || executor.isShutdown() || !writing.compareAndSet(false, true)) {
+            return;
+        }
+        nextCheckpointTime = getNextCheckpointTime(time);
+        final Checkpoint checkpoint = new Checkpoint(netName, net, state);
+        executor.execute(() -> {
+            try {
+                write(checkpoint);
+            } finally {
+                writing.set(false);
+            }
+        });
+    }
+
+    private void write(final Checkpoint checkpoint) {
+        final File file = new File(directory, String.format("%s-%010.1f%s", netName, checkpoint.getSimulationTime(), FILE_EXTENSION));
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("can't create " + directory);
+            }
+            // a partially written checkpoint must never replace a complete one
+            final File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+            final long start = System.nanoTime();
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                final ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new DeflaterOutputStream(output, deflater)));
+                out.writeObject(checkpoint);
+                out.close();
+            } catch (final IOException ex) {
+                Files.deleteIfExists(temporary.toPath());
+                throw ex;
+            } finally {
+                deflater.end();
+            }
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info(String.format("Checkpoint %s written in %.0f ms", file, (System.nanoTime() - start) * 1E-6));
+            deleteOldCheckpoints();
+        } catch (final IOException | RuntimeException ex) {
+            log.error(String.format("Can't write checkpoint %s", file), ex);
+        }
+    }
+}
@@ -34,6 +34,16 @@ public interface Simulatable {
         }
     };
 
+    /**
+     * Estimated cost of simulating this object, relative to the other objects
+     * of the same layer. Used to balance the parallel simulation of a layer.
+     *
+     * @return cost, 1 by default
+     */
+    default double getSimulationCost() {
+        return 1.0;
+    }
+
     /**
      * The simulation layer of the object. 0: Simulate first 1: Simulate second,
      * ...
@@ -12,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.gui.FrameExporter;
 import ch.bfh.ti.jts.gui.Window;
 import ch.bfh.ti.jts.gui.console.Console;
 import ch.bfh.ti.jts.gui.console.commands.Command;
@@ -78,9 +79,10 @@ public class Simulation {
      */
     private static final int                               FLOAT_AVERAGE_TICK_DURATION_SIZE    = Config.getInstance().getInt("simulation.tick.averagetime", 20, 0, 1000);
     /**
-     * Start wallclock time of the simulation [s].
+     * Start wallclock time of the simulation [s]. A resumed simulation
+     * started as long ago as it would have taken to reach its simulation time.
      */
-    private final double                                   startWallClockTime                  = System.nanoTime() * 1E-9;
+    private final double                                   startWallClockTime;
     /**
      * Queue used for floating average calcuateion of tick duration [s].
      */
@@ -101,9 +103,26 @@ public class Simulation {
      * The @{link Net} to simulate.
      */
     final Net                                              simulateNet;
+    /**
+     * Writes the simulation states as images. Can be null.
+     */
+    private final FrameExporter                            frameExporter;
+    /**
+     * Writes checkpoints of the simulation. Can be null.
+     */
+    private final Checkpointer                             checkpointer;
 
-    public Simulation(final Net simulateNet) {
+    /**
+     * @param simulateNet
+     *            the net to simulate, can be resumed from a checkpoint
+     * @param netName
+     *            name of the net
+     */
+    public Simulation(final Net simulateNet, final String netName) {
         this.simulateNet = simulateNet;
+        startWallClockTime = System.nanoTime() * 1E-9 - simulateNet.getSimulationTime() / WALL_CLOCK_ACCELERATION_FACTOR;
+        frameExporter = FrameExporter.EXPORT_ENABLED ? new FrameExporter() : null;
+        checkpointer = Checkpointer.CHECKPOINT_ENABLED ? new Checkpointer(netName) : null;
     }
 
     private void addSimulationState(final Net net) {
@@ -114,10 +133,31 @@ public class Simulation {
             simulationStates.remove(key, value);
         });
 
-        simulationStates.put(netCopy.getSimulationTime(), new SaveState(net));
+        final SaveState saveState = new SaveState(net);
+        simulationStates.put(netCopy.getSimulationTime(), saveState);
+        if (frameExporter != null) {
+            frameExporter.offer(saveState.getSaveState());
+        }
+        if (checkpointer != null) {
+            checkpointer.offer(net, saveState.getSaveState());
+        }
         log.debug("simulationStates.size:" + simulationStates.size());
     }
 
+    /**
+     * Frees the resources of the simulation. Waits for pending frame exports
+     * and checkpoints.
+     */
+    public void close() {
+        simulateNet.setSpawnInfoSource(null);
+        if (frameExporter != null) {
+            frameExporter.close();
+        }
+        if (checkpointer != null) {
+            checkpointer.close();
+        }
+    }
+
     /**
      * command on simulation element
      *
@@ -202,7 +242,7 @@ public class Simulation {
         // delegate simulation to @{link Simulatable}s
         final Layers<Simulatable> simulatables = simulateNet.getSimulatable();
         for (final int layer : simulatables.getLayersIterator()) {
-            simulatables.getLayerStream(layer).parallel().forEach(e -> {
+            simulatables.getLayerStream(layer, Simulatable::getSimulationCost).parallel().forEach(e -> {
                 e.simulate(duration);
             });
         }
@@ -110,6 +110,31 @@ public class Helpers {
         return Color.getHSBColor((float) value, 1.0f, 1.0f);
     }
 
+    /**
+     * Gets the heat color of a value rounded to one of a number of steps, so
+     * that small changes of the value don't change the color.
+     *
+     * @param value
+     *            value
+     * @param minValue
+     *            minimum value
+     * @param maxValue
+     *            maximum value
+     * @param steps
+     *            number of colors, 0 for a continuous color range
+     * @return heat color
+     */
+    public static Color getHeatColor(final double value, final double minValue, final double maxValue, final int steps) {
+        if (steps <= 0) {
+            return getHeatColor(value, minValue, maxValue);
+        }
+        final double relative = (clamp(value, minValue, maxValue) - minValue) / (maxValue - minValue);
+        final double step = Math.min(Math.floor(relative * steps), steps - 1);
+        // spread the steps over the whole range, min stays green, max red
+        final double stepValue = steps == 1 ? 0.0 : step / (steps - 1);
+        return getHeatColor(minValue + stepValue * (maxValue - minValue), minValue, maxValue);
+    }
+
     /**
      * Point in the middle between two points.
      *
@@ -0,0 +1,126 @@
+package ch.bfh.ti.jts.utils.layers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Spliterator over an array backed list which splits into halves of equal
+ * estimated cost instead of equal element count. The estimated size is the
+ * cost of the remaining elements in units of the average element cost, so
+ * that the fork join framework keeps splitting expensive ranges.
+ *
+ * @author Enteee
+ * @author winki
+ * @param <T>
+ *            element type
+ */
+class CostSpliterator<T> implements Spliterator<T> {
+
+    private final List<T>  elements;
+    /**
+     * Cumulative costs. Index i holds the cost of the elements [0, i).
+     */
+    private final double[] prefixCosts;
+    /**
+     * Average cost of an element.
+     */
+    private final double   unitCost;
+    private int            index;
+    private final int      fence;
+
+    private CostSpliterator(final List<T> elements, final double[] prefixCosts, final double unitCost, final int index, final int fence) {
+        this.elements = elements;
+        this.prefixCosts = prefixCosts;
+        this.unitCost = unitCost;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * @param elements
+     *            list to split, must support fast random access and must not
+     *            change while the spliterator is in use
+     * @param cost
+     *            estimated cost of an element, values below 0 are treated as 0
+     */
+    public CostSpliterator(final List<T> elements, final ToDoubleFunction<? super T> cost) {
+        if (elements == null) {
+            throw new ArgumentNullException("elements");
+        }
+        if (cost == null) {
+            throw new ArgumentNullException("cost");
+        }
+        this.elements = elements;
+        prefixCosts = new double[elements.size() + 1];
+        for (int i = 0; i < elements.size(); i++) {
+            prefixCosts[i + 1] = prefixCosts[i] + Math.max(cost.applyAsDouble(elements.get(i)), 0.0);
+        }
+        final double totalCost = prefixCosts[elements.size()];
+        unitCost = elements.isEmpty() || totalCost == 0 ? 1.0 : totalCost / elements.size();
+        index = 0;
+        fence = elements.size();
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (index >= fence) {
+            return 0;
+        }
+        // at least one for every non empty range
+        return Math.max(1, (long) Math.ceil((prefixCosts[fence] - prefixCosts[index]) / unitCost));
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+        if (action == null) {
+            throw new ArgumentNullException("action");
+        }
+        for (; index < fence; index++) {
+            action.accept(elements.get(index));
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        if (action == null) {
+            throw new ArgumentNullException("action");
+        }
+        if (index < fence) {
+            action.accept(elements.get(index++));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (fence - index < 2) {
+            return null;
+        }
+        // first index at which half of the remaining cost is reached
+        final double halfCost = (prefixCosts[index] + prefixCosts[fence]) / 2;
+        int split = Arrays.binarySearch(prefixCosts, index + 1, fence, halfCost);
+        if (split < 0) {
+            split = -split - 1;
+            // the index before may be closer to the half
+            if (split > index + 1 && halfCost - prefixCosts[split - 1] < prefixCosts[split] - halfCost) {
+                split--;
+            }
+        }
+        // both parts have at least one element
+        split = Math.min(Math.max(split, index + 1), fence - 1);
+        final Spliterator<T> prefix = new CostSpliterator<T>(elements, prefixCosts, unitCost, index, split);
+        index = split;
+        return prefix;
+    }
+}
@@ -1,16 +1,21 @@
 package ch.bfh.ti.jts.utils.layers;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
-import java.util.Collection;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * A data structure which holds its elements in layers.
+ * A data structure which holds its elements in layers. The order within a
+ * layer is not preserved on removal.
  *
  * @author Enteee
  * @author winki
@@ -19,10 +24,15 @@ import java.util.stream.Stream;
  */
 public class Layers<T> implements Serializable {
 
-    private static final long                 serialVersionUID = 1L;
+    private static final long                       serialVersionUID = 1L;
 
-    private final Map<Integer, Collection<T>> layers           = new HashMap<Integer, Collection<T>>();
-    private final SortedSet<Integer>          layerKeys        = new TreeSet<>();
+    private final Map<Integer, List<T>>             layers           = new HashMap<Integer, List<T>>();
+    private final SortedSet<Integer>                layerKeys        = new TreeSet<>();
+    /**
+     * Index of each layerable within its layer. Key: layer, Value: layerable
+     * to index map. Not serialized, rebuilt when the layers are read.
+     */
+    private transient Map<Integer, Map<T, Integer>> positions        = new HashMap<>();
 
     public void addLayerable(final int layer, final T layerable) {
         if (layerable == null) {
@@ -31,11 +41,15 @@ public class Layers<T> implements Serializable {
         // does the layer exist?
         if (!layers.containsKey(layer)) {
             // add a new layer
-            layers.put(layer, new LinkedList<T>());
+            layers.put(layer, new ArrayList<T>());
             layerKeys.add(layer);
         }
         // add layerable to layer
-        layers.get(layer).add(layerable);
+        final List<T> layerables = layers.get(layer);
+        final Map<T, Integer> layerPositions = getPositions(layer);
+        if (layerPositions.putIfAbsent(layerable, layerables.size()) == null) {
+            layerables.add(layerable);
+        }
     }
 
     public Iterable<Integer> getLayersIterator() {
@@ -49,11 +63,60 @@ public class Layers<T> implements Serializable {
         return layers.get(layer).stream();
     }
 
+    /**
+     * Gets a stream over a layer which is split by cost when run in parallel.
+     *
+     * @param layer
+     *            the layer
+     * @param cost
+     *            estimated cost of processing a layerable
+     * @return stream of the layer
+     * @throws IndexOutOfBoundsException
+     *             if the layer doesn't exist
+     */
+    public Stream<T> getLayerStream(final Integer layer, final ToDoubleFunction<? super T> cost) throws IndexOutOfBoundsException {
+        if (!layerKeys.contains(layer)) {
+            throw new IndexOutOfBoundsException("layer");
+        }
+        return StreamSupport.stream(new CostSpliterator<T>(layers.get(layer), cost), false);
+    }
+
+    private Map<T, Integer> getPositions(final int layer) {
+        Map<T, Integer> layerPositions = positions.get(layer);
+        if (layerPositions == null) {
+            // build index of the layer
+            layerPositions = new HashMap<>();
+            final List<T> layerables = layers.get(layer);
+            for (int i = 0; i < layerables.size(); i++) {
+                layerPositions.put(layerables.get(i), i);
+            }
+            positions.put(layer, layerPositions);
+        }
+        return layerPositions;
+    }
+
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // index all layers right away, so that removing from a copy doesn't
+        // cost a pass over its layer
+        positions = new HashMap<>();
+        layerKeys.forEach(this::getPositions);
+    }
+
     public void removeLayerable(final int layer, final T layerable) {
         if (!layers.containsKey(layer)) {
             throw new IndexOutOfBoundsException("layer");
         }
-        // add layerable to layer
-        layers.get(layer).remove(layerable);
+        // remove layerable from layer by swapping in the last one
+        final List<T> layerables = layers.get(layer);
+        final Map<T, Integer> layerPositions = getPositions(layer);
+        final Integer index = layerPositions.remove(layerable);
+        if (index != null) {
+            final T last = layerables.remove(layerables.size() - 1);
+            if (index < layerables.size()) {
+                layerables.set(index, last);
+                layerPositions.put(last, index);
+            }
+        }
     }
 }
@@ -0,0 +1,264 @@
+package ch.bfh.ti.jts.utils.spatial;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Static R-tree which is bulk loaded with the sort-tile-recursive (STR)
+ * algorithm. The tree can't be changed after construction.
+ *
+ * @see <a href="http://en.wikipedia.org/wiki/R-tree">R-tree (Wikipedia)</a>
+ * @author Enteee
+ * @author winki
+ * @param <T>
+ *            item type
+ */
+public class RTree<T> {
+
+    /**
+     * Node of the tree. Leaf entries hold an item, inner nodes hold children.
+     *
+     * @author Enteee
+     * @author winki
+     * @param <T>
+     *            item type
+     */
+    private static class Node<T> {
+
+        private final double        minX;
+        private final double        minY;
+        private final double        maxX;
+        private final double        maxY;
+        private final T             item;
+        private final List<Node<T>> children;
+
+        public Node(final List<Node<T>> children) {
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (final Node<T> child : children) {
+                minX = Math.min(minX, child.minX);
+                minY = Math.min(minY, child.minY);
+                maxX = Math.max(maxX, child.maxX);
+                maxY = Math.max(maxY, child.maxY);
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+            this.children = children;
+            item = null;
+        }
+
+        public Node(final T item, final Rectangle2D bounds) {
+            minX = bounds.getMinX();
+            minY = bounds.getMinY();
+            maxX = bounds.getMaxX();
+            maxY = bounds.getMaxY();
+            this.item = item;
+            children = null;
+        }
+
+        private double getCenterX() {
+            return (minX + maxX) / 2;
+        }
+
+        private double getCenterY() {
+            return (minY + maxY) / 2;
+        }
+
+        /**
+         * Minimal distance from a point to the bounding box of this node.
+         *
+         * @param x
+         *            x coordinate
+         * @param y
+         *            y coordinate
+         * @return distance, 0 if the point is inside
+         */
+        private double getDistance(final double x, final double y) {
+            final double dx = Math.max(Math.max(minX - x, 0), x - maxX);
+            final double dy = Math.max(Math.max(minY - y, 0), y - maxY);
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        private boolean intersects(final Rectangle2D area) {
+            return minX <= area.getMaxX() && maxX >= area.getMinX() && minY <= area.getMaxY() && maxY >= area.getMinY();
+        }
+
+        private boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    /**
+     * Entry in the priority queue of the nearest neighbour search.
+     *
+     * @author Enteee
+     * @author winki
+     * @param <T>
+     *            item type
+     */
+    private static class NodeDistance<T> {
+
+        private final Node<T> node;
+        private final double  distance;
+
+        public NodeDistance(final Node<T> node, final double distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Maximum number of children per node.
+     */
+    private static final int NODE_CAPACITY = 16;
+
+    private final Node<T>    root;
+    private final int        size;
+
+    /**
+     * Builds the tree.
+     *
+     * @param items
+     *            items to hold
+     * @param bounds
+     *            function returning the bounding box of an item
+     */
+    public RTree(final Collection<T> items, final Function<T, Rectangle2D> bounds) {
+        if (items == null) {
+            throw new ArgumentNullException("items");
+        }
+        if (bounds == null) {
+            throw new ArgumentNullException("bounds");
+        }
+        List<Node<T>> level = new ArrayList<>(items.size());
+        for (final T item : items) {
+            level.add(new Node<T>(item, bounds.apply(item)));
+        }
+        size = level.size();
+        while (level.size() > 1) {
+            level = pack(level);
+        }
+        root = level.isEmpty() ? null : level.get(0);
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Finds the nearest item to a point. The distance function must never
+     * return less than the distance from the point to the bounding box of the
+     * item.
+     *
+     * @param point
+     *            the point
+     * @param maxDistance
+     *            maximum distance of the item (inclusive)
+     * @param distance
+     *            exact distance from the point to an item
+     * @return nearest item, {@link Optional#empty()} if there is no item in
+     *         range
+     */
+    public Optional<T> nearest(final Point2D point, final double maxDistance, final ToDoubleFunction<T> distance) {
+        if (point == null) {
+            throw new ArgumentNullException("point");
+        }
+        T nearest = null;
+        double nearestDistance = maxDistance;
+        if (root != null) {
+            final PriorityQueue<NodeDistance<T>> queue = new PriorityQueue<>(Comparator.comparingDouble(x -> x.distance));
+            queue.add(new NodeDistance<T>(root, root.getDistance(point.getX(), point.getY())));
+            while (!queue.isEmpty()) {
+                final NodeDistance<T> next = queue.poll();
+                if (next.distance > nearestDistance) {
+                    // all remaining entries are further away
+                    break;
+                }
+                if (next.node.isLeaf()) {
+                    final double itemDistance = distance.applyAsDouble(next.node.item);
+                    if (itemDistance <= nearestDistance && (nearest == null || itemDistance < nearestDistance)) {
+                        nearest = next.node.item;
+                        nearestDistance = itemDistance;
+                    }
+                } else {
+                    for (final Node<T> child : next.node.children) {
+                        final double childDistance = child.getDistance(point.getX(), point.getY());
+                        if (childDistance <= nearestDistance) {
+                            queue.add(new NodeDistance<T>(child, childDistance));
+                        }
+                    }
+                }
+            }
+        }
+        return Optional.ofNullable(nearest);
+    }
+
+    /**
+     * Packs a level of nodes into parent nodes. Nodes are sorted into vertical
+     * slices by x and within the slices by y.
+     *
+     * @param level
+     *            nodes to pack
+     * @return parent nodes
+     */
+    private List<Node<T>> pack(final List<Node<T>> level) {
+        final int parentCount = (level.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        final int sliceCount = (int) Math.ceil(Math.sqrt(parentCount));
+        final int sliceSize = sliceCount * NODE_CAPACITY;
+        level.sort(Comparator.comparingDouble(Node::getCenterX));
+        final List<Node<T>> parents = new ArrayList<>(parentCount);
+        for (int sliceStart = 0; sliceStart < level.size(); sliceStart += sliceSize) {
+            final List<Node<T>> slice = new ArrayList<>(level.subList(sliceStart, Math.min(sliceStart + sliceSize, level.size())));
+            slice.sort(Comparator.comparingDouble(Node::getCenterY));
+            for (int nodeStart = 0; nodeStart < slice.size(); nodeStart += NODE_CAPACITY) {
+                parents.add(new Node<T>(new ArrayList<>(slice.subList(nodeStart, Math.min(nodeStart + NODE_CAPACITY, slice.size())))));
+            }
+        }
+        return parents;
+    }
+
+    /**
+     * Visits all items whose bounding box intersects an area.
+     *
+     * @param area
+     *            the area
+     * @param consumer
+     *            called for each item found
+     */
+    public void query(final Rectangle2D area, final Consumer<T> consumer) {
+        if (area == null) {
+            throw new ArgumentNullException("area");
+        }
+        if (root != null) {
+            query(root, area, consumer);
+        }
+    }
+
+    private void query(final Node<T> node, final Rectangle2D area, final Consumer<T> consumer) {
+        if (!node.intersects(area)) {
+            return;
+        }
+        if (node.isLeaf()) {
+            consumer.accept(node.item);
+        } else {
+            for (final Node<T> child : node.children) {
+                query(child, area, consumer);
+            }
+        }
+    }
+}
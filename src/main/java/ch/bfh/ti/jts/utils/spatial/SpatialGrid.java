@@ -0,0 +1,168 @@
+package ch.bfh.ti.jts.utils.spatial;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.ToDoubleFunction;
+
+import ch.bfh.ti.jts.exceptions.ArgumentNullException;
+
+/**
+ * Uniform hash grid for point items. Cheap to build, meant to be rebuilt
+ * whenever the items have moved.
+ *
+ * @author Enteee
+ * @author winki
+ * @param <T>
+ *            item type
+ */
+public class SpatialGrid<T> {
+
+    /**
+     * Item with the position it was added at.
+     *
+     * @author Enteee
+     * @author winki
+     * @param <T>
+     *            item type
+     */
+    private static class Entry<T> {
+
+        private final T      item;
+        private final double x;
+        private final double y;
+
+        public Entry(final T item, final double x, final double y) {
+            this.item = item;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * Side length of a cell [m].
+     */
+    private final double                    cellSize;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private int                             size;
+
+    public SpatialGrid(final double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize");
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param item
+     *            the item
+     * @param position
+     *            position of the item
+     */
+    public void add(final T item, final Point2D position) {
+        if (item == null) {
+            throw new ArgumentNullException("item");
+        }
+        if (position == null) {
+            throw new ArgumentNullException("position");
+        }
+        final long key = getKey(getCell(position.getX()), getCell(position.getY()));
+        List<Entry<T>> cell = cells.get(key);
+        if (cell == null) {
+            cell = new ArrayList<>();
+            cells.put(key, cell);
+        }
+        cell.add(new Entry<T>(item, position.getX(), position.getY()));
+        size++;
+    }
+
+    private int getCell(final double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private long getKey(final int cellX, final int cellY) {
+        return (long) cellX << 32 | cellY & 0xFFFFFFFFL;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Finds the nearest item to a point.
+     *
+     * @param point
+     *            the point
+     * @param maxDistance
+     *            maximum distance of the item (inclusive)
+     * @param distance
+     *            exact distance from the point to an item
+     * @return nearest item, {@link Optional#empty()} if there is no item in
+     *         range
+     */
+    public Optional<T> nearest(final Point2D point, final double maxDistance, final ToDoubleFunction<T> distance) {
+        if (point == null) {
+            throw new ArgumentNullException("point");
+        }
+        final Rectangle2D area = new Rectangle2D.Double(point.getX() - maxDistance, point.getY() - maxDistance, 2 * maxDistance, 2 * maxDistance);
+        final List<T> candidates = new ArrayList<>();
+        query(area, candidates::add);
+        T nearest = null;
+        double nearestDistance = maxDistance;
+        for (final T candidate : candidates) {
+            final double candidateDistance = distance.applyAsDouble(candidate);
+            if (candidateDistance <= nearestDistance && (nearest == null || candidateDistance < nearestDistance)) {
+                nearest = candidate;
+                nearestDistance = candidateDistance;
+            }
+        }
+        return Optional.ofNullable(nearest);
+    }
+
+    /**
+     * Visits all items positioned in an area.
+     *
+     * @param area
+     *            the area
+     * @param consumer
+     *            called for each item found
+     */
+    public void query(final Rectangle2D area, final Consumer<T> consumer) {
+        if (area == null) {
+            throw new ArgumentNullException("area");
+        }
+        final long minCellX = getCell(area.getMinX());
+        final long maxCellX = getCell(area.getMaxX());
+        final long minCellY = getCell(area.getMinY());
+        final long maxCellY = getCell(area.getMaxY());
+        final double cellCount = (double) (maxCellX - minCellX + 1) * (double) (maxCellY - minCellY + 1);
+        if (cellCount > cells.size()) {
+            // area is larger than the populated part of the grid
+            cells.values().forEach(cell -> query(cell, area, consumer));
+        } else {
+            for (long cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (long cellY = minCellY; cellY <= maxCellY; cellY++) {
+                    final List<Entry<T>> cell = cells.get(getKey((int) cellX, (int) cellY));
+                    if (cell != null) {
+                        query(cell, area, consumer);
+                    }
+                }
+            }
+        }
+    }
+
+    private void query(final List<Entry<T>> cell, final Rectangle2D area, final Consumer<T> consumer) {
+        for (final Entry<T> entry : cell) {
+            if (entry.x >= area.getMinX() && entry.x <= area.getMaxX() && entry.y >= area.getMinY() && entry.y <= area.getMaxY()) {
+                consumer.accept(entry.item);
+            }
+        }
+    }
+}
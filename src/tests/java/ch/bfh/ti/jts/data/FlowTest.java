@@ -0,0 +1,58 @@
+package ch.bfh.ti.jts.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FlowTest {
+
+    private static Flow flow(final double frequency) {
+        return new Flow(new Vehicle(), null, null, 0, 0, frequency);
+    }
+
+    @Test
+    public void testFixedHeadway() {
+        final Random random = new Random(0);
+        assertEquals(0.25, flow(4).getHeadway(random, false), 0.0);
+        assertEquals(0.25, flow(4).getHeadway(random, false), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, flow(0).getHeadway(random, false), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, flow(-1).getHeadway(random, true), 0.0);
+    }
+
+    @Test
+    public void testPoissonHeadway() {
+        final Flow flow = flow(2);
+        final Random random = new Random(42);
+        final int count = 100000;
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 0; i < count; i++) {
+            final double headway = flow.getHeadway(random, true);
+            assertTrue(headway >= 0 && !Double.isInfinite(headway));
+            sum += headway;
+            sumOfSquares += headway * headway;
+        }
+        // exponential distribution: mean and standard deviation 1 / frequency
+        final double mean = sum / count;
+        assertEquals(0.5, mean, 0.01);
+        assertEquals(0.5, Math.sqrt(sumOfSquares / count - mean * mean), 0.01);
+    }
+
+    @Test
+    public void testPoissonHeadwaySeeded() {
+        final Flow flow = flow(2);
+        final Random first = new Random(7);
+        final Random second = new Random(7);
+        final Random other = new Random(8);
+        boolean differs = false;
+        for (int i = 0; i < 100; i++) {
+            final double headway = flow.getHeadway(first, true);
+            assertEquals(headway, flow.getHeadway(second, true), 0.0);
+            differs |= headway != flow.getHeadway(other, true);
+        }
+        assertTrue(differs);
+    }
+}
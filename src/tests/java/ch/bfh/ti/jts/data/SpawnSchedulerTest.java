@@ -0,0 +1,123 @@
+package ch.bfh.ti.jts.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Shape;
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.bfh.ti.jts.gui.PolyShape;
+import ch.bfh.ti.jts.utils.Config;
+
+public class SpawnSchedulerTest {
+
+    private static final double SPAWN_TIME_FACTOR = Config.getInstance().getDouble("net.spawning.timefactor", 1440.0, 0.0000000001, 10000000000.0);
+
+    private final Shape         s                 = new Line2D.Double(0, 0, 1, 1);
+    private final PolyShape     p                 = new PolyShape("0.0,0.0 100.0,0.0");
+    private Net                 net;
+    private Junction            start;
+    private Junction            end;
+
+    /**
+     * @return agents of the net in spawn order
+     */
+    private List<Agent> getAgents() {
+        return net.getElementStream(Agent.class).map(x -> (Agent) x).sorted(Comparator.comparingInt(Element::getId)).collect(Collectors.toList());
+    }
+
+    private Route route(final double departureTime) {
+        return new Route(new Vehicle(), start, end, departureTime * SPAWN_TIME_FACTOR, 0, 0, 0, 0);
+    }
+
+    @Before
+    public void setUp() {
+        net = new Net();
+        start = new Junction("j0", 0, 0, s);
+        end = new Junction("j1", 100, 0, s);
+        net.addElement(start);
+        net.addElement(end);
+        final Edge edge = new Edge("e0", start, end, 1);
+        new Lane("l0", edge, 0, 10, 100, p);
+        net.addElement(edge);
+    }
+
+    @Test
+    public void testFlowSpawnsSeveralTimesPerStep() {
+        final Flow flow = new Flow(new Vehicle(), start, end, 0, 0, 4);
+        net.addRoutes(Arrays.asList(flow));
+        net.simulate(1.0);
+        // departures at 0.0, 0.25, 0.5 and 0.75
+        assertEquals(4, getAgents().size());
+        net.simulate(0.1);
+        // 1.0 is due after 1.0 only
+        assertEquals(5, getAgents().size());
+        net.simulate(2.0);
+        assertEquals(13, getAgents().size());
+        getAgents().forEach(agent -> assertSame(flow, agent.getSpawnInfo()));
+        // the flow stays scheduled
+        assertEquals(1, net.getRoutes().size());
+    }
+
+    @Test
+    public void testNetSpawnsInDepartureOrder() {
+        final Route late = route(2.5);
+        final Route early = route(0.5);
+        final Route middle = route(1.5);
+        final Route sameAsMiddle = route(1.5);
+        net.addRoutes(Arrays.asList(late, early, middle, sameAsMiddle));
+        assertEquals(Arrays.asList(early, middle, sameAsMiddle, late), new ArrayList<>(net.getRoutes()));
+        net.simulate(1.0);
+        assertEquals(1, getAgents().size());
+        net.simulate(1.0);
+        net.simulate(1.0);
+        final List<SpawnInfo> spawned = getAgents().stream().map(Agent::getSpawnInfo).collect(Collectors.toList());
+        assertEquals(Arrays.asList(early, middle, sameAsMiddle, late), spawned);
+        assertEquals(0, net.getRoutes().size());
+    }
+
+    @Test
+    public void testPollDue() {
+        final SpawnScheduler scheduler = new SpawnScheduler();
+        final Route route = route(0);
+        assertEquals(Double.POSITIVE_INFINITY, scheduler.getNextTime(), 0.0);
+        assertNull(scheduler.pollDue(Double.MAX_VALUE));
+        scheduler.schedule(route, 1.0);
+        assertEquals(1.0, scheduler.getNextTime(), 0.0);
+        // due strictly before the time only
+        assertNull(scheduler.pollDue(1.0));
+        assertSame(route, scheduler.pollDue(Math.nextUp(1.0)));
+        assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void testSchedulingOrder() {
+        final SpawnScheduler scheduler = new SpawnScheduler();
+        final Route[] routes = new Route[6];
+        for (int i = 0; i < routes.length; i++) {
+            routes[i] = route(0);
+        }
+        scheduler.schedule(routes[4], 3.0);
+        scheduler.schedule(routes[0], 1.0);
+        scheduler.schedule(routes[2], 2.0);
+        scheduler.schedule(routes[5], 3.0);
+        scheduler.schedule(routes[1], 1.0);
+        scheduler.schedule(routes[3], 2.0);
+        assertEquals(Arrays.asList(routes), scheduler.getSpawnInfos());
+        // listing doesn't consume
+        assertEquals(routes.length, scheduler.size());
+        for (final Route route : routes) {
+            assertSame(route, scheduler.pollDue(10.0));
+        }
+        assertNull(scheduler.pollDue(10.0));
+    }
+}
@@ -1,7 +1,10 @@
 package ch.bfh.ti.jts.gui.data;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.awt.geom.Point2D;
 import java.util.LinkedList;
@@ -29,6 +32,22 @@ public class PolyShapeTest {
         assertEquals(ps.getEndPoint(), points.get(2));
     }
 
+    @Test
+    public void constructorCoordinates() {
+        final PolyShape ps = new PolyShape(new double[] { 0.0, 0.0, 0.0, 10.0, 10.0, 10.0 }, false);
+        assertEquals(ps.getStartPoint(), new Point2D.Double(0.0, 0.0));
+        assertEquals(ps.getEndPoint(), new Point2D.Double(10.0, 10.0));
+        assertTrue(ps.getLength() == 20.0);
+    }
+
+    @Test
+    public void constructorShapeString() {
+        final PolyShape ps = new PolyShape("558.31,104.01 473.01,382.50");
+        // y coordinates are inverted
+        assertEquals(ps.getStartPoint(), new Point2D.Double(558.31, -104.01));
+        assertEquals(ps.getEndPoint(), new Point2D.Double(473.01, -382.50));
+    }
+
     @Test
     public void getLengthMorePoints() {
         final List<Point2D> points = new LinkedList<Point2D>();
@@ -90,4 +109,51 @@ public class PolyShapeTest {
         final PolyShape ps = new PolyShape(points);
         assertEquals(ps.getRelativePosition(0.5), new Point2D.Double(0, 5.0));
     }
+
+    @Test
+    public void getRelativePositionMorePoints() {
+        final List<Point2D> points = new LinkedList<Point2D>();
+        points.add(new Point2D.Double(0.0, 0.0));
+        points.add(new Point2D.Double(0.0, 10.0));
+        points.add(new Point2D.Double(10.0, 10.0));
+        final PolyShape ps = new PolyShape(points);
+        final Point2D buffer = new Point2D.Double();
+        assertSame(ps.getRelativePosition(0.75, buffer), buffer);
+        assertEquals(buffer, new Point2D.Double(5.0, 10.0));
+        assertEquals(ps.getRelativePosition(1.0), new Point2D.Double(10.0, 10.0));
+        assertTrue(ps.getRelativeOrientation(0.25) == Math.PI / 2);
+        assertTrue(ps.getRelativeOrientation(0.75) == 0.0);
+    }
+
+    @Test
+    public void parseCoordinates() {
+        final String shapeString = "558.31,104.01 -473.01,382.5 0,-0.00 12345678.123456789,0.1 -0.30000000000000004,7";
+        final String[] values = shapeString.split("[ ,]");
+        final double[] expected = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            expected[i] = Double.parseDouble(values[i]);
+        }
+        // exactly as Double.parseDouble
+        assertArrayEquals(expected, PolyShape.parseCoordinates(shapeString), 0.0);
+    }
+
+    @Test
+    public void parseCoordinatesWrongFormat() {
+        assertWrongFormat("1.0,2.0 3.0", 11);
+        assertWrongFormat("1.0,2.0 ", 8);
+        assertWrongFormat("1.0;2.0", 3);
+        assertWrongFormat("1.0,2.", 6);
+        assertWrongFormat("1.0,2.0  3.0,4.0", 8);
+        assertWrongFormat("1.0,x", 4);
+        assertWrongFormat("", 0);
+    }
+
+    private void assertWrongFormat(final String shapeString, final int position) {
+        try {
+            PolyShape.parseCoordinates(shapeString);
+            fail("no exception for " + shapeString);
+        } catch (final IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("position " + position + ":"));
+        }
+    }
 }
@@ -1,14 +1,60 @@
 package ch.bfh.ti.jts.importer;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
 import org.junit.Test;
 
+import ch.bfh.ti.jts.data.Edge;
+import ch.bfh.ti.jts.data.Junction;
+import ch.bfh.ti.jts.data.Lane;
 import ch.bfh.ti.jts.data.Net;
 
 public class ImporterTest {
 
+    /**
+     * Describes the lanes of a net and their connections by name.
+     */
+    private static Map<String, String> describe(final Net net) {
+        final Map<String, String> lanes = new TreeMap<>();
+        net.getElementStream(Lane.class).map(element -> (Lane) element).forEach(lane -> {
+            final Map<String, Object> connections = new TreeMap<>();
+            lane.getLanes().forEach(next -> connections.put(next.getName(), null));
+            lanes.put(lane.getName(), String.format("%s %s>%s %.2f %s", lane.getEdge().getName(), lane.getEdge().getStart().getName(), lane.getEdge().getEnd().getName(),
+                    lane.getLength(), connections.keySet()));
+        });
+        return lanes;
+    }
+
+    @Test
+    public void testCachedImportEqualsImport() throws IOException {
+        final String path = "src/main/resources/wankdorf.net.xml";
+        final File directory = Files.createTempDirectory("netcache").toFile();
+        try {
+            final NetCache cache = new NetCache(directory);
+            final Net compiled = cache.importData(path);
+            assertEquals(1, directory.list().length);
+            final Net mapped = cache.importData(path);
+            final Net imported = new NetImporter().importData(path);
+            assertEquals(describe(imported), describe(compiled));
+            assertEquals(describe(imported), describe(mapped));
+            assertEquals(imported.getElementStream(Junction.class).count(), mapped.getElementStream(Junction.class).count());
+        } finally {
+            for (final File file : directory.listFiles()) {
+                assertTrue(file.delete());
+            }
+            assertTrue(directory.delete());
+        }
+    }
+
     @Test
     public void testImport() {
         try {
@@ -19,4 +65,14 @@ public class ImporterTest {
             fail(e.getMessage());
         }
     }
+
+    @Test
+    public void testStreamingImportEqualsDomImport() {
+        final String path = "src/main/resources/wankdorf.net.xml";
+        final Net streamed = new NetImporter().importData(path);
+        final Net dom = new DomNetImporter().importData(path);
+        assertEquals(dom.getElementStream(Junction.class).count(), streamed.getElementStream(Junction.class).count());
+        assertEquals(dom.getElementStream(Edge.class).count(), streamed.getElementStream(Edge.class).count());
+        assertEquals(describe(dom), describe(streamed));
+    }
 }
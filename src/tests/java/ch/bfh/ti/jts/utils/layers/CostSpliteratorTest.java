@@ -0,0 +1,126 @@
+package ch.bfh.ti.jts.utils.layers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.junit.Test;
+
+public class CostSpliteratorTest {
+
+    private static List<Integer> drain(final Spliterator<Integer> spliterator) {
+        final List<Integer> elements = new ArrayList<>();
+        spliterator.forEachRemaining(elements::add);
+        return elements;
+    }
+
+    private static List<Integer> range(final int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Splits recursively and checks every split. Returns the elements of all
+     * parts in order.
+     */
+    private static List<Integer> splitAll(final Spliterator<Integer> spliterator, final ToDoubleFunction<Integer> cost) {
+        final Spliterator<Integer> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            final List<Integer> elements = drain(spliterator);
+            assertFalse("empty part", elements.isEmpty());
+            return elements;
+        }
+        final List<Integer> first = splitAll(prefix, cost);
+        final List<Integer> second = splitAll(spliterator, cost);
+        // halves differ by at most the cost of one element
+        final double firstCost = first.stream().mapToDouble(cost).sum();
+        final double secondCost = second.stream().mapToDouble(cost).sum();
+        final double maxCost = Math.max(first.stream().mapToDouble(cost).max().getAsDouble(), second.stream().mapToDouble(cost).max().getAsDouble());
+        assertTrue(String.format("%s vs %s", first, second), Math.abs(firstCost - secondCost) <= maxCost + 1E-9);
+        final List<Integer> elements = new ArrayList<>(first);
+        elements.addAll(second);
+        return elements;
+    }
+
+    @Test
+    public void testEmpty() {
+        final Spliterator<Integer> spliterator = new CostSpliterator<>(Collections.<Integer> emptyList(), x -> 1.0);
+        assertEquals(0, spliterator.estimateSize());
+        assertNull(spliterator.trySplit());
+        assertFalse(spliterator.tryAdvance(x -> {
+        }));
+    }
+
+    @Test
+    public void testEstimateSize() {
+        final Spliterator<Integer> spliterator = new CostSpliterator<>(range(10), x -> x == 0 ? 10.0 : 0.0);
+        // average cost is 1
+        assertEquals(10, spliterator.estimateSize());
+        final Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(10, prefix.estimateSize());
+        // free elements still count as one
+        assertEquals(1, spliterator.estimateSize());
+    }
+
+    @Test
+    public void testParallelStream() {
+        final List<Integer> elements = range(10000);
+        final long sum = StreamSupport.stream(new CostSpliterator<>(elements, x -> x % 100), true).mapToLong(Integer::longValue).sum();
+        assertEquals(10000L * 9999 / 2, sum);
+        final List<Integer> collected = StreamSupport.stream(new CostSpliterator<>(elements, x -> x % 100), true).collect(Collectors.toList());
+        assertEquals(elements, collected);
+    }
+
+    @Test
+    public void testSingleElement() {
+        final Spliterator<Integer> spliterator = new CostSpliterator<>(range(1), x -> 5.0);
+        assertEquals(1, spliterator.estimateSize());
+        assertNull(spliterator.trySplit());
+        assertEquals(range(1), drain(spliterator));
+        assertEquals(0, spliterator.estimateSize());
+    }
+
+    @Test
+    public void testSplitBalancesCost() {
+        // cost grows with the index: the first half holds more elements
+        final List<Integer> elements = range(100);
+        final Spliterator<Integer> spliterator = new CostSpliterator<>(elements, x -> x);
+        final List<Integer> first = drain(spliterator.trySplit());
+        final List<Integer> second = drain(spliterator);
+        assertTrue(first.size() > second.size());
+        assertEquals(first.stream().mapToInt(Integer::intValue).sum(), second.stream().mapToInt(Integer::intValue).sum(), 100);
+    }
+
+    @Test
+    public void testSplitsCoverAllElements() {
+        final Random random = new Random(0);
+        final double[] randomCosts = random.doubles(1000).map(x -> x < 0.3 ? 0.0 : x * 100).toArray();
+        final List<ToDoubleFunction<Integer>> costs = new ArrayList<>();
+        costs.add(x -> 1.0);
+        costs.add(x -> 0.0);
+        costs.add(x -> -1.0);
+        costs.add(x -> x);
+        // one expensive element
+        costs.add(x -> x == 17 ? 1000.0 : 1.0);
+        // mostly free elements
+        costs.add(x -> x % 10 == 0 ? 3.0 : 0.0);
+        costs.add(x -> randomCosts[x]);
+        for (final ToDoubleFunction<Integer> cost : costs) {
+            final ToDoubleFunction<Integer> clampedCost = x -> Math.max(cost.applyAsDouble(x), 0.0);
+            for (final int size : new int[] { 1, 2, 3, 17, 18, 100, 1000 }) {
+                final List<Integer> elements = range(size);
+                assertEquals(elements, splitAll(new CostSpliterator<>(elements, cost), clampedCost));
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package ch.bfh.ti.jts.utils.spatial;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import ch.bfh.ti.jts.data.Agent;
+import ch.bfh.ti.jts.data.Edge;
+import ch.bfh.ti.jts.data.Element;
+import ch.bfh.ti.jts.data.Junction;
+import ch.bfh.ti.jts.data.Lane;
+import ch.bfh.ti.jts.data.Net;
+import ch.bfh.ti.jts.importer.NetImporter;
+import ch.bfh.ti.jts.importer.RoutesImporter;
+
+/**
+ * Checks the spatial indices against a scan over all elements of the bundled
+ * nets.
+ */
+public class SpatialIndexTest {
+
+    private static final String[]   NETS          = { "ramp", "multilane", "wankdorf" };
+    private static final Class<?>[] SPATIAL_TYPES = { Agent.class, Lane.class, Edge.class, Junction.class };
+    private static final int        QUERIES       = 200;
+
+    private static Rectangle2D getBounds(final List<Element> elements) {
+        final Rectangle2D bounds = elements.get(0).getBounds();
+        elements.forEach(element -> bounds.add(element.getBounds()));
+        return bounds;
+    }
+
+    private static Set<Integer> getIds(final List<Element> elements) {
+        return elements.stream().map(Element::getId).collect(Collectors.toSet());
+    }
+
+    private static Net importNet(final String name) {
+        final Net net = new NetImporter().importData(String.format("src/main/resources/%s.net.xml", name));
+        final RoutesImporter routesImporter = new RoutesImporter();
+        routesImporter.setNet(net);
+        net.addRoutes(routesImporter.importData(String.format("src/main/resources/%s.rou.xml", name)));
+        // spawn some agents
+        for (int i = 0; i < 200; i++) {
+            net.simulate(0.5);
+        }
+        return net;
+    }
+
+    private static boolean isSpatial(final Element element) {
+        return Arrays.stream(SPATIAL_TYPES).anyMatch(type -> type.isInstance(element));
+    }
+
+    private static Point2D randomPoint(final Random random, final Rectangle2D bounds) {
+        return new Point2D.Double(bounds.getMinX() + random.nextDouble() * bounds.getWidth(), bounds.getMinY() + random.nextDouble() * bounds.getHeight());
+    }
+
+    @Test
+    public void testNetNearest() {
+        for (final String name : NETS) {
+            final Net net = importNet(name);
+            final List<Element> elements = net.getElementStream().filter(SpatialIndexTest::isSpatial).collect(Collectors.toList());
+            final Rectangle2D bounds = getBounds(elements);
+            final Random random = new Random(0);
+            for (int i = 0; i < QUERIES; i++) {
+                final Point2D point = randomPoint(random, bounds);
+                final double maxDistance = random.nextDouble() * 100;
+                for (final Class<?> type : new Class<?>[] { Element.class, Agent.class, Lane.class, Junction.class }) {
+                    final double expected = elements.stream().filter(type::isInstance).mapToDouble(x -> x.getDistance(point)).filter(x -> x <= maxDistance).min()
+                            .orElse(Double.NaN);
+                    final Optional<Element> nearest = net.getElementByCoordinates(point, maxDistance, type);
+                    final String message = String.format("%s %s %s", name, point, type.getSimpleName());
+                    assertEquals(message, !Double.isNaN(expected), nearest.isPresent());
+                    if (nearest.isPresent()) {
+                        assertTrue(message, type.isInstance(nearest.get()));
+                        assertEquals(message, expected, nearest.get().getDistance(point), 1E-9);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testNetRange() {
+        for (final String name : NETS) {
+            final Net net = importNet(name);
+            final List<Element> elements = net.getElementStream().filter(SpatialIndexTest::isSpatial).collect(Collectors.toList());
+            assertTrue(name, elements.stream().anyMatch(Agent.class::isInstance));
+            final Rectangle2D bounds = getBounds(elements);
+            final Random random = new Random(1);
+            for (int i = 0; i < QUERIES; i++) {
+                final Point2D point = randomPoint(random, bounds);
+                final double maxDistance = random.nextDouble() * 200;
+                for (final Class<?> type : new Class<?>[] { Element.class, Agent.class, Lane.class, Edge.class }) {
+                    final List<Element> expected = elements.stream().filter(type::isInstance).filter(x -> x.getDistance(point) <= maxDistance).collect(Collectors.toList());
+                    final List<Element> found = net.getElementsInRange(point, maxDistance, type);
+                    final String message = String.format("%s %s %s", name, point, type.getSimpleName());
+                    assertEquals(message, expected.size(), found.size());
+                    assertEquals(message, getIds(expected), getIds(found));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRTree() {
+        for (final String name : NETS) {
+            final Net net = new NetImporter().importData(String.format("src/main/resources/%s.net.xml", name));
+            final List<Element> elements = net.getElementStream().filter(SpatialIndexTest::isSpatial).collect(Collectors.toList());
+            final RTree<Element> tree = new RTree<>(elements, Element::getBounds);
+            assertEquals(elements.size(), tree.getSize());
+            final Rectangle2D bounds = getBounds(elements);
+            final Random random = new Random(2);
+            for (int i = 0; i < QUERIES; i++) {
+                final Point2D point = randomPoint(random, bounds);
+                final double size = random.nextDouble() * 300;
+                final Rectangle2D area = new Rectangle2D.Double(point.getX(), point.getY(), size, random.nextDouble() * 300);
+                final List<Element> expected = elements.stream().filter(x -> {
+                    final Rectangle2D box = x.getBounds();
+                    return box.getMinX() <= area.getMaxX() && box.getMaxX() >= area.getMinX() && box.getMinY() <= area.getMaxY() && box.getMaxY() >= area.getMinY();
+                }).collect(Collectors.toList());
+                final List<Element> found = new ArrayList<>();
+                tree.query(area, found::add);
+                assertEquals(name, expected.size(), found.size());
+                assertEquals(name, getIds(expected), getIds(found));
+                final double expectedDistance = elements.stream().mapToDouble(x -> x.getDistance(point)).filter(x -> x <= size).min().orElse(Double.NaN);
+                final Optional<Element> nearest = tree.nearest(point, size, x -> x.getDistance(point));
+                assertEquals(name, !Double.isNaN(expectedDistance), nearest.isPresent());
+                nearest.ifPresent(x -> assertEquals(name, expectedDistance, x.getDistance(point), 1E-9));
+            }
+        }
+    }
+
+    @Test
+    public void testSpatialGrid() {
+        final Random random = new Random(3);
+        final List<Point2D> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            points.add(new Point2D.Double(random.nextGaussian() * 500, random.nextGaussian() * 500));
+        }
+        for (final double cellSize : new double[] { 1, 50, 10000 }) {
+            final SpatialGrid<Point2D> grid = new SpatialGrid<>(cellSize);
+            points.forEach(point -> grid.add(point, point));
+            assertEquals(points.size(), grid.getSize());
+            for (int i = 0; i < QUERIES; i++) {
+                final Point2D point = new Point2D.Double(random.nextGaussian() * 500, random.nextGaussian() * 500);
+                final double size = random.nextDouble() * 200;
+                final Rectangle2D area = new Rectangle2D.Double(point.getX() - size, point.getY() - size, 2 * size, 2 * size);
+                final Set<Point2D> expected = points.stream().filter(x -> x.getX() >= area.getMinX() && x.getX() <= area.getMaxX() && x.getY() >= area.getMinY()
+                        && x.getY() <= area.getMaxY()).collect(Collectors.toSet());
+                final Set<Point2D> found = new HashSet<>();
+                grid.query(area, found::add);
+                assertEquals(expected, found);
+                final double expectedDistance = points.stream().mapToDouble(x -> x.distance(point)).filter(x -> x <= size).min().orElse(Double.NaN);
+                final Optional<Point2D> nearest = grid.nearest(point, size, x -> x.distance(point));
+                assertEquals(!Double.isNaN(expectedDistance), nearest.isPresent());
+                nearest.ifPresent(x -> assertEquals(expectedDistance, x.distance(point), 0.0));
+            }
+        }
+    }
+}